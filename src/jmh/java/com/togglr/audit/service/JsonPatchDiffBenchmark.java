@@ -0,0 +1,101 @@
+package com.togglr.audit.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UPDATE audit of a feature whose large metadata changed in one nested value: {@link #patch()} builds and
+ * serializes the JSON Patch stored today, {@link #topLevelValues()} the old and new top-level values that
+ * were stored before. The stored size of each is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonPatchDiffBenchmark {
+
+    @Param({"1650"})
+    public int rules;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private JsonNode source;
+    private JsonNode target;
+
+    @Setup
+    public void setUp() throws Exception {
+        source = feature(rules);
+        target = source.deepCopy();
+        ((ObjectNode) target.at("/metadata/rules/" + rules / 2 + "/conditions/0")).put("value", "changed");
+
+        System.out.printf("%nMetadata: %d bytes, patch: %d bytes, top-level values: %d bytes%n",
+                objectMapper.writeValueAsBytes(source.get("metadata")).length, patch().length(),
+                topLevelValues().length());
+    }
+
+    @Benchmark
+    public String patch() throws Exception {
+        return objectMapper.writeValueAsString(JsonPatchDiff.diff(source, target));
+    }
+
+    @Benchmark
+    public String topLevelValues() throws Exception {
+        ObjectNode oldValues = objectMapper.createObjectNode();
+        ObjectNode newValues = objectMapper.createObjectNode();
+        Iterator<Map.Entry<String, JsonNode>> fields = target.fields();
+
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode oldValue = source.get(field.getKey());
+
+            if (oldValue == null || !oldValue.equals(field.getValue())) {
+                if (oldValue != null) {
+                    oldValues.set(field.getKey(), oldValue);
+                }
+                newValues.set(field.getKey(), field.getValue());
+            }
+        }
+
+        return objectMapper.writeValueAsString(oldValues) + objectMapper.writeValueAsString(newValues);
+    }
+
+    private JsonNode feature(int rules) {
+        ObjectNode feature = objectMapper.createObjectNode()
+                .put("name", "checkout-redesign")
+                .put("enabled", true);
+        ObjectNode metadata = feature.putObject("metadata");
+        metadata.put("owner", "team-payments");
+        ArrayNode ruleNodes = metadata.putArray("rules");
+
+        for (int i = 0; i < rules; i++) {
+            ObjectNode rule = ruleNodes.addObject()
+                    .put("id", "rule-" + i)
+                    .put("rollout", i % 100);
+            rule.putArray("conditions").addObject()
+                    .put("attribute", "country")
+                    .put("operator", "in")
+                    .put("value", "region-" + (i % 40));
+            rule.putArray("segments").add("beta").add("internal");
+        }
+
+        return feature;
+    }
+}
@@ -0,0 +1,88 @@
+package com.togglr.feature.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.togglr.feature.snapshot.FeatureView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cached feature list encoded with {@link FeatureRedisSerializer} against the default-typed JSON serializer it
+ * replaced. The payload size of each format is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FeatureRedisSerializerBenchmark {
+
+    @Param({"binary", "json"})
+    public String format;
+
+    @Param({"100"})
+    public int features;
+
+    private RedisSerializer<Object> serializer;
+    private List<FeatureView> value;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        objectMapper.activateDefaultTyping(objectMapper.getPolymorphicTypeValidator(),
+                ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+
+        RedisSerializer<Object> json = new GenericJackson2JsonRedisSerializer(objectMapper);
+        serializer = "binary".equals(format) ? new FeatureRedisSerializer(json, objectMapper) : json;
+
+        value = new ArrayList<>(features);
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int i = 0; i < features; i++) {
+            value.add(new FeatureView((long) i, "feature-" + i, "checkout", "production", i % 2 == 0,
+                    FeatureView.readOnlyMetadata("{\"owner\":\"team-" + (i % 7) + "\",\"rollout\":" + (i % 100)
+                            + ",\"segments\":[\"beta\",\"internal\"]}"),
+                    now.minusDays(i), now));
+        }
+
+        payload = serializer.serialize(value);
+        System.out.printf("%n%s payload for %d features: %d bytes%n", format, features, payload.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(payload);
+    }
+
+    @Benchmark
+    public Object roundTrip() {
+        return serializer.deserialize(serializer.serialize(value));
+    }
+}
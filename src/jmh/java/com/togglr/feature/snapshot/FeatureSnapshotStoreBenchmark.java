@@ -0,0 +1,96 @@
+package com.togglr.feature.snapshot;
+
+import com.togglr.common.resilience.DegradedMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup restore of a snapshot file holding {@code pairs} namespace/environment pairs of {@code features} features
+ * each: {@link #read()} decodes the file, {@link #restore()} also loads a fresh registry as a booting node does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FeatureSnapshotStoreBenchmark {
+
+    @Param({"50"})
+    public int pairs;
+
+    @Param({"200"})
+    public int features;
+
+    private Path directory;
+    private Path path;
+    private FeatureSnapshotStore store;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("togglr-snapshot-benchmark");
+        path = directory.resolve("feature-snapshots.bin");
+
+        List<FeatureSnapshot> snapshots = new ArrayList<>(pairs);
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int pair = 0; pair < pairs; pair++) {
+            List<FeatureView> views = new ArrayList<>(features);
+
+            for (int i = 0; i < features; i++) {
+                views.add(new FeatureView((long) pair * features + i, "feature-" + i, "namespace-" + pair, "production",
+                        i % 2 == 0, FeatureView.readOnlyMetadata("{\"owner\":\"team-" + (i % 7) + "\",\"rollout\":"
+                        + (i % 100) + ",\"segments\":[\"beta\",\"internal\"]}"), now.minusDays(i), now));
+            }
+
+            snapshots.add(FeatureSnapshot.of("namespace-" + pair, "production", pair + 1, views));
+        }
+
+        store = newStore(new FeatureSnapshotRegistry(new SimpleMeterRegistry(), event -> { }, 10000, 10000));
+        store.write(snapshots);
+        System.out.printf("%nSnapshot file for %d pairs of %d features: %d bytes%n", pairs, features, Files.size(path));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public Map<SnapshotKey, FeatureSnapshot> read() throws IOException {
+        return store.read();
+    }
+
+    @Benchmark
+    public FeatureSnapshotRegistry restore() {
+        FeatureSnapshotRegistry registry = new FeatureSnapshotRegistry(new SimpleMeterRegistry(), event -> { }, 10000, 10000);
+        newStore(registry).restore();
+        return registry;
+    }
+
+    private FeatureSnapshotStore newStore(FeatureSnapshotRegistry registry) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new FeatureSnapshotStore(registry, new DegradedMode(meterRegistry, 5, 30000), meterRegistry, true, path);
+    }
+}
@@ -6,29 +6,26 @@ import com.togglr.audit.service.AuditService;
 import com.togglr.feature.entity.Environment;
 import com.togglr.feature.entity.Feature;
 import com.togglr.feature.entity.Namespace;
-import com.togglr.feature.repository.EnvironmentRepository;
-import com.togglr.feature.repository.FeatureRepository;
-import com.togglr.feature.repository.NamespaceRepository;
-import com.togglr.rest.dto.FeatureResponse;
+import com.togglr.feature.service.ReadOrigin;
+import com.togglr.feature.snapshot.FeatureSnapshotRegistry;
+import com.togglr.rest.dto.FeatureBatchResponse;
 import lombok.RequiredArgsConstructor;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.AfterReturning;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.springframework.cache.Cache;
-import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Aspect
 @Component
 @RequiredArgsConstructor
 public class AuditAspect {
     private final AuditService auditService;
-    private final FeatureRepository featureRepository;
-    private final NamespaceRepository namespaceRepository;
-    private final EnvironmentRepository environmentRepository;
-    private final CacheManager cacheManager;
+    private final FeatureSnapshotRegistry snapshotRegistry;
 
     @AfterReturning(value = "execution(* com.togglr.feature.service.FeatureService.createFeature(..))", returning = "result")
     public void auditFeatureCreate(Object result) {
@@ -45,65 +42,36 @@ public class AuditAspect {
         String namespaceName = (String) args[1];
         String environmentName = (String) args[2];
 
-        String cacheKey = name + "_" + namespaceName + "_" + environmentName;
-        Cache cache = cacheManager.getCache("features");
-        boolean existedInCache = cache != null && cache.get(cacheKey) != null;
-
         Object result = joinPoint.proceed();
 
-        if (result != null) {
-            Object responseBody = ((org.springframework.http.ResponseEntity<?>) result).getBody();
-
-            if (responseBody instanceof FeatureResponse featureResponse) {
-                DataSource dataSource = existedInCache ? DataSource.CACHE : DataSource.DATABASE;
-                auditService.logAccess(EntityType.FEATURE, featureResponse.id(), featureResponse.name(), dataSource);
-            }
+        // The body is pre-encoded JSON, so the accessed feature is looked up in the snapshot the controller just read
+        if (result instanceof org.springframework.http.ResponseEntity<?> response && response.getStatusCode().is2xxSuccessful()) {
+            snapshotRegistry.peek(namespaceName, environmentName)
+                    .flatMap(snapshot -> snapshot.find(name))
+                    .ifPresent(feature -> auditService.logAccess(EntityType.FEATURE, feature.id(), feature.name(), dataSource()));
         }
 
         return result;
     }
 
-    @Around("execution(* com.togglr.feature.service.FeatureService.updateFeature(..))")
-    public Object auditFeatureUpdate(ProceedingJoinPoint joinPoint) throws Throwable {
+    @Around("execution(* com.togglr.rest.controller.FeatureController.getFeatures(..))")
+    public Object auditFeatureBatchAccess(ProceedingJoinPoint joinPoint) throws Throwable {
         Object[] args = joinPoint.getArgs();
-        Long featureId = (Long) args[0];
-
-        Feature originalFeature = featureRepository.findByIdWithRelations(featureId).orElse(null);
-        Feature oldFeature = null;
-
-        if (originalFeature != null) {
-            oldFeature = Feature.builder()
-                    .name(originalFeature.getName())
-                    .namespace(originalFeature.getNamespace())
-                    .environment(originalFeature.getEnvironment())
-                    .enabled(originalFeature.getEnabled())
-                    .metadata(originalFeature.getMetadata())
-                    .build();
-            oldFeature.setId(originalFeature.getId());
-            oldFeature.setCreatedAt(originalFeature.getCreatedAt());
-            oldFeature.setUpdatedAt(originalFeature.getUpdatedAt());
-        }
+        String namespaceName = (String) args[1];
+        String environmentName = (String) args[2];
 
         Object result = joinPoint.proceed();
 
-        if (result != null && oldFeature != null) {
-            Feature newFeature = (Feature) result;
-            auditService.logUpdate(EntityType.FEATURE, newFeature.getId(), newFeature.getName(), oldFeature, newFeature);
-        }
-
-        return result;
-    }
-
-    @Around("execution(* com.togglr.feature.service.FeatureService.deleteFeature(..))")
-    public Object auditFeatureDelete(ProceedingJoinPoint joinPoint) throws Throwable {
-        Object[] args = joinPoint.getArgs();
-        Long featureId = (Long) args[0];
+        if (result != null) {
+            Object responseBody = ((org.springframework.http.ResponseEntity<?>) result).getBody();
 
-        Feature oldFeature = featureRepository.findByIdWithRelations(featureId).orElse(null);
-        Object result = joinPoint.proceed();
+            if (responseBody instanceof FeatureBatchResponse batchResponse && !batchResponse.features().isEmpty()) {
+                Map<Long, String> accessed = new LinkedHashMap<>();
+                batchResponse.features().forEach(feature -> accessed.put(feature.id(), feature.name()));
 
-        if (oldFeature != null) {
-            auditService.logDelete(EntityType.FEATURE, oldFeature.getId(), oldFeature.getName(), oldFeature);
+                String entityName = namespaceName + "/" + environmentName + " (" + accessed.size() + " features)";
+                auditService.logBatchAccess(EntityType.FEATURE, entityName, accessed, dataSource());
+            }
         }
 
         return result;
@@ -118,21 +86,6 @@ public class AuditAspect {
         }
     }
 
-    @Around("execution(* com.togglr.feature.service.NamespaceService.delete(..))")
-    public Object auditNamespaceDelete(ProceedingJoinPoint joinPoint) throws Throwable {
-        Object[] args = joinPoint.getArgs();
-        Long namespaceId = (Long) args[0];
-
-        Namespace oldNamespace = namespaceRepository.findById(namespaceId).orElse(null);
-        Object result = joinPoint.proceed();
-
-        if (oldNamespace != null) {
-            auditService.logDelete(EntityType.NAMESPACE, oldNamespace.getId(), oldNamespace.getName(), oldNamespace);
-        }
-
-        return result;
-    }
-
     // Environment Audit
     @AfterReturning(value = "execution(* com.togglr.feature.service.EnvironmentService.create(..))", returning = "result")
     public void auditEnvironmentCreate(JoinPoint joinPoint, Object result) {
@@ -142,18 +95,8 @@ public class AuditAspect {
         }
     }
 
-    @Around("execution(* com.togglr.feature.service.EnvironmentService.delete(..))")
-    public Object auditEnvironmentDelete(ProceedingJoinPoint joinPoint) throws Throwable {
-        Object[] args = joinPoint.getArgs();
-        Long environmentId = (Long) args[0];
-
-        Environment oldEnvironment = environmentRepository.findById(environmentId).orElse(null);
-        Object result = joinPoint.proceed();
-
-        if (oldEnvironment != null) {
-            auditService.logDelete(EntityType.ENVIRONMENT, oldEnvironment.getId(), oldEnvironment.getName(), oldEnvironment);
-        }
-
-        return result;
+    // Set by the read path when it had to load from the database, so no extra cache lookup is needed here
+    private static DataSource dataSource() {
+        return ReadOrigin.isDatabase() ? DataSource.DATABASE : DataSource.CACHE;
     }
-}
\ No newline at end of file
+}
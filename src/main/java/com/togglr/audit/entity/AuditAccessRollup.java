@@ -0,0 +1,55 @@
+package com.togglr.audit.entity;
+
+import com.togglr.audit.enums.DataSource;
+import com.togglr.audit.enums.EntityType;
+import com.togglr.common.entity.BaseEntity;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "audit_access_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_audit_access_rollup",
+                columnNames = {"entity_type", "entity_id", "username", "data_source", "bucket_start"})
+}, indexes = {
+        @Index(name = "idx_audit_access_rollup_bucket", columnList = "bucket_start")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditAccessRollup extends BaseEntity {
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false)
+    private EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    private String entityName;
+
+    @Column(nullable = false)
+    private String username;
+
+    private String userType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "data_source", nullable = false)
+    private DataSource dataSource;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "access_count", nullable = false)
+    private Long accessCount;
+}
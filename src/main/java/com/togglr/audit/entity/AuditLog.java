@@ -1,5 +1,6 @@
 package com.togglr.audit.entity;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.togglr.audit.enums.AuditAction;
 import com.togglr.audit.enums.DataSource;
 import com.togglr.audit.enums.EntityType;
@@ -14,13 +15,17 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 @Entity
+// Every index ends in (created_at, id), the keyset order, so a filtered page is a single ordered range scan;
+// user_type and data_source are too coarse for an index of their own and are checked during that scan
 @Table(name = "audit_logs", indexes = {
-        @Index(name = "idx_audit_entity_type_id", columnList = "entity_type, entity_id"),
-        @Index(name = "idx_audit_created_at", columnList = "created_at"),
-        @Index(name = "idx_audit_username", columnList = "username"),
-        @Index(name = "idx_audit_action", columnList = "action")
+        @Index(name = "idx_audit_entity_created", columnList = "entity_type, entity_id, created_at, id"),
+        @Index(name = "idx_audit_created", columnList = "created_at, id"),
+        @Index(name = "idx_audit_username_created", columnList = "username, created_at, id"),
+        @Index(name = "idx_audit_action_created", columnList = "action, created_at, id")
 })
 @Getter
 @Setter
@@ -49,6 +54,11 @@ public class AuditLog extends BaseEntity {
     @Column(columnDefinition = "TEXT")
     private String newValues;
 
+    // RFC 6902 JSON Patch of an UPDATE, with a test op holding each previous value
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(columnDefinition = "jsonb")
+    private JsonNode changes;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "data_source")
     private DataSource dataSource;
@@ -0,0 +1,11 @@
+package com.togglr.audit.enums;
+
+/**
+ * How ACCESS events are recorded.
+ */
+public enum AuditAccessMode {
+    /** One audit_logs row per access. */
+    ROW,
+    /** Per-minute counts in audit_access_rollups. */
+    ROLLUP
+}
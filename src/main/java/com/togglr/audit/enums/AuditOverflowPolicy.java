@@ -0,0 +1,13 @@
+package com.togglr.audit.enums;
+
+/**
+ * What the audit writer does with an event when its queue is full.
+ */
+public enum AuditOverflowPolicy {
+    /** Wait up to {@code block-timeout} ms for room in the queue, then drop the event. */
+    BLOCK,
+    /** Drop ACCESS events, wait for room for everything else as {@link #BLOCK} does. */
+    DROP_ACCESS,
+    /** Append the event to a local spill file, replayed once the queue has drained; events the database rejects go to a {@code .rejected} file. */
+    SPILL
+}
@@ -0,0 +1,38 @@
+package com.togglr.audit.enums;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Range covered by one audit_logs partition.
+ */
+public enum AuditPartitionInterval {
+    DAILY {
+        @Override
+        public LocalDateTime start(LocalDateTime time) {
+            return time.toLocalDate().atStartOfDay();
+        }
+
+        @Override
+        public LocalDateTime next(LocalDateTime start) {
+            return start.plusDays(1);
+        }
+    },
+    MONTHLY {
+        @Override
+        public LocalDateTime start(LocalDateTime time) {
+            return LocalDate.of(time.getYear(), time.getMonth(), 1).atStartOfDay();
+        }
+
+        @Override
+        public LocalDateTime next(LocalDateTime start) {
+            return start.plusMonths(1);
+        }
+    };
+
+    /** Start of the partition holding {@code time}. */
+    public abstract LocalDateTime start(LocalDateTime time);
+
+    /** Start of the partition after the one starting at {@code start}. */
+    public abstract LocalDateTime next(LocalDateTime start);
+}
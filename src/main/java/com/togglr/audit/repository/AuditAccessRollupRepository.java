@@ -0,0 +1,17 @@
+package com.togglr.audit.repository;
+
+import com.togglr.audit.entity.AuditAccessRollup;
+import com.togglr.audit.enums.EntityType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface AuditAccessRollupRepository extends JpaRepository<AuditAccessRollup, Long>, JpaSpecificationExecutor<AuditAccessRollup> {
+    Page<AuditAccessRollup> findByEntityTypeAndEntityIdAndBucketStartBetweenOrderByBucketStartDesc(
+            EntityType entityType, Long entityId, LocalDateTime from, LocalDateTime to, Pageable pageable);
+}
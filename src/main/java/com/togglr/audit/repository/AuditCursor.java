@@ -0,0 +1,45 @@
+package com.togglr.audit.repository;
+
+import com.togglr.audit.entity.AuditLog;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Position after the last audit log of a page, ordered by (created_at, id) descending.
+ * Rendered as an opaque URL-safe token.
+ */
+public record AuditCursor(LocalDateTime createdAt, long id) {
+    public static AuditCursor of(AuditLog log) {
+        return new AuditCursor(log.getCreatedAt(), log.getId());
+    }
+
+    public static Optional<AuditCursor> parse(String value) {
+        if (value == null || value.isBlank()) {
+            return Optional.empty();
+        }
+
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf(',');
+
+            if (separator <= 0) {
+                return Optional.empty();
+            }
+
+            return Optional.of(new AuditCursor(LocalDateTime.parse(decoded.substring(0, separator)),
+                    Long.parseLong(decoded.substring(separator + 1))));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdAt + "," + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,99 @@
+package com.togglr.audit.repository;
+
+import com.togglr.audit.entity.AuditLog;
+import com.togglr.audit.enums.AuditAction;
+import com.togglr.audit.enums.DataSource;
+import com.togglr.audit.enums.EntityType;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Filters of the audit log queries; every one is optional. The same conditions are available as a JPA
+ * {@link Specification} and as SQL, for the queries that have to run outside of JPA.
+ */
+public record AuditLogFilter(
+        EntityType entityType,
+        Long entityId,
+        List<AuditAction> actions,
+        String userType,
+        String username,
+        DataSource dataSource,
+        LocalDateTime from,
+        LocalDateTime to
+) {
+    public Specification<AuditLog> toSpecification() {
+        Specification<AuditLog> spec = Specification.where(null);
+
+        if (entityType != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("entityType"), entityType));
+        }
+        if (entityId != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("entityId"), entityId));
+        }
+        if (actions != null && !actions.isEmpty()) {
+            spec = spec.and((root, query, cb) -> root.get("action").in(actions));
+        }
+        if (userType != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("userType"), userType));
+        }
+        if (username != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("username"), username));
+        }
+        if (dataSource != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("dataSource"), dataSource));
+        }
+        if (from != null) {
+            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("createdAt"), from));
+        }
+        if (to != null) {
+            spec = spec.and((root, query, cb) -> cb.lessThan(root.get("createdAt"), to));
+        }
+
+        return spec;
+    }
+
+    /**
+     * The conditions as a SQL WHERE clause on audit_logs, appending the bind values to {@code params}.
+     */
+    public String toSql(List<Object> params) {
+        StringBuilder sql = new StringBuilder("WHERE TRUE");
+
+        if (entityType != null) {
+            sql.append(" AND entity_type = ?");
+            params.add(entityType.name());
+        }
+        if (entityId != null) {
+            sql.append(" AND entity_id = ?");
+            params.add(entityId);
+        }
+        if (actions != null && !actions.isEmpty()) {
+            sql.append(" AND action IN (").append("?, ".repeat(actions.size() - 1)).append("?)");
+            actions.forEach(action -> params.add(action.name()));
+        }
+        if (userType != null) {
+            sql.append(" AND user_type = ?");
+            params.add(userType);
+        }
+        if (username != null) {
+            sql.append(" AND username = ?");
+            params.add(username);
+        }
+        if (dataSource != null) {
+            sql.append(" AND data_source = ?");
+            params.add(dataSource.name());
+        }
+        if (from != null) {
+            sql.append(" AND created_at >= ?");
+            params.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND created_at < ?");
+            params.add(Timestamp.valueOf(to));
+        }
+
+        return sql.toString();
+    }
+}
@@ -15,7 +15,7 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface AuditLogRepository extends JpaRepository<AuditLog, Long>, JpaSpecificationExecutor<AuditLog> {
+public interface AuditLogRepository extends JpaRepository<AuditLog, Long>, JpaSpecificationExecutor<AuditLog>, AuditLogRepositoryCustom {
     Page<AuditLog> findByEntityTypeAndEntityIdOrderByCreatedAtDesc(
             EntityType entityType, Long entityId, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.togglr.audit.repository;
+
+import com.togglr.audit.entity.AuditLog;
+
+import java.util.List;
+
+public interface AuditLogRepositoryCustom {
+    /**
+     * Up to {@code limit} logs matching the filter, newest first, strictly after {@code after} when given.
+     * Seeks on (created_at, id) instead of skipping rows, so every page costs the same.
+     */
+    List<AuditLog> findPage(AuditLogFilter filter, AuditCursor after, int limit);
+
+    /**
+     * The planner's row estimate for the filter; cheap, but only as accurate as the table statistics.
+     */
+    long estimateCount(AuditLogFilter filter);
+}
@@ -0,0 +1,66 @@
+package com.togglr.audit.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.togglr.audit.entity.AuditLog;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class AuditLogRepositoryCustomImpl implements AuditLogRepositoryCustom {
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public List<AuditLog> findPage(AuditLogFilter filter, AuditCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AuditLog> query = cb.createQuery(AuditLog.class);
+        Root<AuditLog> root = query.from(AuditLog.class);
+        Path<LocalDateTime> createdAt = root.get("createdAt");
+        Path<Long> id = root.get("id");
+
+        Predicate where = filter.toSpecification().toPredicate(root, query, cb);
+
+        if (after != null) {
+            // The plain created_at bound is redundant but gives the index scan a start key
+            Predicate seek = cb.and(
+                    cb.lessThanOrEqualTo(createdAt, after.createdAt()),
+                    cb.or(cb.lessThan(createdAt, after.createdAt()), cb.lessThan(id, after.id())));
+            where = where != null ? cb.and(where, seek) : seek;
+        }
+
+        if (where != null) {
+            query.where(where);
+        }
+
+        query.orderBy(cb.desc(createdAt), cb.desc(id));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public long estimateCount(AuditLogFilter filter) {
+        List<Object> params = new ArrayList<>();
+        String plan = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) SELECT 1 FROM audit_logs " + filter.toSql(params),
+                String.class, params.toArray());
+
+        try {
+            return objectMapper.readTree(plan).path(0).path("Plan").path("Plan Rows").asLong();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable query plan", e);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.togglr.audit.service;
+
+import com.togglr.audit.enums.DataSource;
+import com.togglr.audit.enums.EntityType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Counts ACCESS events per (entity, user, data source, minute) and periodically adds them to audit_access_rollups.
+ * A minute is flushed once it has closed; the upsert adds to an existing row, which lets every node flush the
+ * same minute independently.
+ * <p>
+ * A counter is only changed inside a map operation on its key, so an access recorded while its counter is
+ * being flushed either lands before the removal and is written, or starts a new counter for the next flush.
+ * <p>
+ * Counters are keyed on exactly the upsert's conflict columns, so a batch never holds two rows for the same
+ * row in the table. Entity name and user type ride along with the counter, the latest value wins.
+ */
+@Log4j2
+@Component
+public class AccessRollupAggregator {
+    static final String UPSERT_SQL = "INSERT INTO audit_access_rollups (entity_type, entity_id, entity_name, username, user_type, " +
+            "data_source, bucket_start, access_count, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (entity_type, entity_id, username, data_source, bucket_start) " +
+            "DO UPDATE SET access_count = audit_access_rollups.access_count + EXCLUDED.access_count, " +
+            "entity_name = EXCLUDED.entity_name, user_type = EXCLUDED.user_type, updated_at = EXCLUDED.updated_at";
+
+    // Events are bucketed when they happen, so a minute is only flushed a little after it ends
+    private static final long CLOSE_GRACE_SECONDS = 5;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxAttempts;
+    private final ConcurrentMap<Key, AccessCounter> counters = new ConcurrentHashMap<>();
+    private final Counter dropped;
+
+    public AccessRollupAggregator(JdbcTemplate jdbcTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${togglr.audit.rollup.max-attempts:5}") int maxAttempts) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxAttempts = maxAttempts;
+        Gauge.builder("togglr.audit.rollup.keys", counters, Map::size)
+                .description("Access counters waiting to be flushed")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("togglr.audit.rollup.dropped")
+                .description("Accesses dropped after their rollup failed to flush max-attempts times")
+                .register(meterRegistry);
+    }
+
+    public void record(EntityType entityType, Long entityId, String entityName, String username, String userType, DataSource dataSource) {
+        Key key = new Key(entityType, entityId, username, dataSource, LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES));
+        counters.compute(key, (k, counter) -> {
+            AccessCounter current = counter != null ? counter : new AccessCounter();
+            current.entityName = entityName;
+            current.userType = userType;
+            current.count++;
+            return current;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${togglr.audit.rollup.flush-interval:60000}")
+    public void flush() {
+        flush(LocalDateTime.now().minusSeconds(CLOSE_GRACE_SECONDS).truncatedTo(ChronoUnit.MINUTES));
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        flush(LocalDateTime.MAX);
+    }
+
+    private void flush(LocalDateTime before) {
+        List<Map.Entry<Key, AccessCounter>> flushed = new ArrayList<>();
+
+        for (Key key : counters.keySet()) {
+            if (key.bucket().isBefore(before)) {
+                AccessCounter counter = counters.remove(key);
+
+                if (counter != null && counter.count > 0) {
+                    flushed.add(Map.entry(key, counter));
+                }
+            }
+        }
+
+        if (flushed.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>(flushed.size());
+        flushed.forEach(entry -> {
+            Key key = entry.getKey();
+            AccessCounter counter = entry.getValue();
+            rows.add(new Object[]{
+                    key.entityType().name(), key.entityId(), counter.entityName, key.username(), counter.userType,
+                    key.dataSource().name(), Timestamp.valueOf(key.bucket()), counter.count,
+                    Timestamp.valueOf(now), Timestamp.valueOf(now)
+            });
+        });
+
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+        } catch (RuntimeException e) {
+            log.error("Failed to flush {} access rollups", rows.size(), e);
+            flushed.forEach(entry -> retry(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    // Puts the counts back for the next flush, until they have failed max-attempts times
+    private void retry(Key key, AccessCounter failed) {
+        int attempts = failed.attempts + 1;
+
+        if (attempts >= maxAttempts) {
+            long count = failed.count;
+            dropped.increment(count);
+            log.warn("Dropping {} accesses of {} {} in {} after {} failed flushes", count, key.entityType(), key.entityId(), key.bucket(), attempts);
+            return;
+        }
+
+        failed.attempts = attempts;
+        counters.merge(key, failed, (current, retried) -> {
+            current.count += retried.count;
+            current.attempts = Math.max(current.attempts, attempts);
+            return current;
+        });
+    }
+
+    record Key(EntityType entityType, Long entityId, String username, DataSource dataSource, LocalDateTime bucket) {
+    }
+
+    // Guarded by the map: only read or written inside an operation on its key, or after it has been removed
+    private static final class AccessCounter {
+        private long count;
+        private String entityName;
+        private String userType;
+        private int attempts;
+    }
+}
@@ -0,0 +1,28 @@
+package com.togglr.audit.service;
+
+import com.togglr.audit.enums.AuditAction;
+import com.togglr.audit.enums.DataSource;
+import com.togglr.audit.enums.EntityType;
+
+import java.time.LocalDateTime;
+
+/**
+ * One audit row, captured on the request thread so that user, address and trace are those of the request.
+ * {@code changes} is the JSON Patch of an UPDATE, the other actions keep whole entities in the value columns.
+ */
+public record AuditEvent(
+        String username,
+        AuditAction action,
+        EntityType entityType,
+        Long entityId,
+        String entityName,
+        String oldValues,
+        String newValues,
+        String changes,
+        DataSource dataSource,
+        String ipAddress,
+        String traceId,
+        String userType,
+        LocalDateTime createdAt
+) {
+}
@@ -0,0 +1,190 @@
+package com.togglr.audit.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.togglr.audit.enums.AuditExportFormat;
+import com.togglr.audit.repository.AuditLogFilter;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes audit logs straight from a server-side cursor to an output stream, one row at a time, so an export
+ * holds at most one fetch of rows in memory however many it covers. Postgres only keeps a cursor open
+ * inside a transaction, hence the export runs with auto-commit off on a connection of its own.
+ */
+@Log4j2
+@Component
+public class AuditExporter {
+    private static final String[] COLUMNS = {
+            "id", "created_at", "username", "user_type", "action", "entity_type", "entity_id", "entity_name",
+            "old_values", "new_values", "changes", "data_source", "ip_address", "trace_id"
+    };
+    private static final String SELECT_SQL = "SELECT " + String.join(", ", COLUMNS) + " FROM audit_logs ";
+    private static final int CREATED_AT_COLUMN = 2;
+    private static final int CHANGES_COLUMN = 11;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public AuditExporter(JdbcTemplate jdbcTemplate,
+                         ObjectMapper objectMapper,
+                         @Value("${togglr.audit.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Writes every log matching the filter, oldest first, and returns how many were written.
+     */
+    public long export(AuditLogFilter filter, AuditExportFormat format, OutputStream out) throws IOException {
+        List<Object> params = new ArrayList<>();
+        String sql = SELECT_SQL + filter.toSql(params) + " ORDER BY created_at, id";
+        long start = System.nanoTime();
+
+        try {
+            Long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+
+                try (PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    statement.setFetchSize(fetchSize);
+
+                    for (int i = 0; i < params.size(); i++) {
+                        statement.setObject(i + 1, params.get(i));
+                    }
+
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        return format == AuditExportFormat.CSV ? writeCsv(resultSet, out) : writeNdjson(resultSet, out);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    rollback(connection, autoCommit);
+                }
+            });
+
+            log.info("Exported {} audit logs as {} in {} ms", rows, format, (System.nanoTime() - start) / 1_000_000);
+            return rows != null ? rows : 0;
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; the cursor is already closed
+            throw e.getCause();
+        }
+    }
+
+    private long writeNdjson(ResultSet resultSet, OutputStream out) throws SQLException, IOException {
+        long rows = 0;
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            while (resultSet.next()) {
+                generator.writeStartObject();
+
+                for (int i = 0; i < COLUMNS.length; i++) {
+                    generator.writeFieldName(COLUMNS[i]);
+                    String value = value(resultSet, i + 1);
+
+                    if (value == null) {
+                        generator.writeNull();
+                    } else if (i + 1 == CHANGES_COLUMN) {
+                        // jsonb is always valid JSON, so the patch is embedded as is
+                        generator.writeRawValue(value);
+                    } else {
+                        generator.writeString(value);
+                    }
+                }
+
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                rows++;
+            }
+        }
+
+        return rows;
+    }
+
+    private long writeCsv(ResultSet resultSet, OutputStream out) throws SQLException, IOException {
+        long rows = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(String.join(",", COLUMNS));
+        writer.write("\r\n");
+
+        while (resultSet.next()) {
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+
+                writeCsvField(writer, value(resultSet, i + 1));
+            }
+
+            writer.write("\r\n");
+            rows++;
+        }
+
+        writer.flush();
+        return rows;
+    }
+
+    // RFC 4180: fields holding a comma, quote or line break are quoted, with quotes doubled
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+
+        boolean quote = false;
+
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static String value(ResultSet resultSet, int column) throws SQLException {
+        if (column == CREATED_AT_COLUMN) {
+            Timestamp createdAt = resultSet.getTimestamp(column);
+            return createdAt != null ? createdAt.toLocalDateTime().toString() : null;
+        }
+
+        return resultSet.getString(column);
+    }
+
+    // The export only reads; ending the transaction with a rollback also closes the cursor
+    private static void rollback(Connection connection, boolean autoCommit) throws SQLException {
+        try {
+            connection.rollback();
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package com.togglr.audit.service;
+
+import com.togglr.audit.enums.AuditPartitionInterval;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps audit_logs range-partitioned by created_at, so inserts only maintain the indexes of the current
+ * partition and old data leaves by dropping whole tables instead of deleting rows.
+ * <p>
+ * The partitioned table is created before Hibernate's schema update runs. A pre-existing plain audit_logs
+ * table is kept as the partition {@code audit_logs_plegacy}, covering everything up to the next interval.
+ * Maintenance creates partitions ahead of time, moving rows that already landed in the default partition into
+ * the new one, detaches the ones that ended more than retention-days ago, writes each detached partition to a
+ * gzipped CSV under archive-path and only then drops it. Partitions are marked with {@link #DETACHED_COMMENT}
+ * before they are detached, so a run that failed half-way is finished by the next one and no other table is
+ * ever archived or dropped. A Postgres advisory lock keeps several nodes from doing this at the same time.
+ */
+@Log4j2
+@Component
+public class AuditPartitionManager {
+    static final String TABLE = "audit_logs";
+    static final String PARTITION_PREFIX = "audit_logs_p";
+    private static final String LEGACY_PARTITION = PARTITION_PREFIX + "legacy";
+    private static final String DEFAULT_PARTITION = "audit_logs_default";
+    private static final long LOCK_KEY = 0x746f67676c72L;
+    static final String DETACHED_COMMENT = "togglr: expired audit partition, archived and dropped by maintenance";
+    private static final String CHECK_VIOLATION = "23514";
+    private static final Pattern LOWER_BOUND = Pattern.compile("FROM \\('([^']+)'\\)");
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String CREATE_TABLE_SQL = "CREATE TABLE " + TABLE + " (" +
+            "id BIGINT NOT NULL DEFAULT nextval('audit_logs_seq'), " +
+            "created_at TIMESTAMP(6) NOT NULL, " +
+            "updated_at TIMESTAMP(6), " +
+            "username VARCHAR(255) NOT NULL, " +
+            "action VARCHAR(255) NOT NULL, " +
+            "entity_type VARCHAR(255) NOT NULL, " +
+            "entity_id BIGINT NOT NULL, " +
+            "entity_name VARCHAR(255), " +
+            "old_values TEXT, " +
+            "new_values TEXT, " +
+            "changes JSONB, " +
+            "data_source VARCHAR(255), " +
+            "ip_address VARCHAR(255), " +
+            "trace_id VARCHAR(255), " +
+            "user_type VARCHAR(255), " +
+            "PRIMARY KEY (id, created_at)" +
+            ") PARTITION BY RANGE (created_at)";
+
+    // Same names and columns as the @Index declarations on AuditLog, so Hibernate finds them in place
+    private static final List<String> INDEXES = List.of(
+            "idx_audit_entity_created ON " + TABLE + " (entity_type, entity_id, created_at, id)",
+            "idx_audit_created ON " + TABLE + " (created_at, id)",
+            "idx_audit_username_created ON " + TABLE + " (username, created_at, id)",
+            "idx_audit_action_created ON " + TABLE + " (action, created_at, id)"
+    );
+
+    // Superseded by the composite indexes above
+    private static final List<String> OBSOLETE_INDEXES = List.of(
+            "idx_audit_entity_type_id", "idx_audit_created_at", "idx_audit_username", "idx_audit_action");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final AuditPartitionInterval interval;
+    private final int premake;
+    private final int retentionDays;
+    private final Path archivePath;
+
+    public AuditPartitionManager(JdbcTemplate jdbcTemplate,
+                                 @Value("${togglr.audit.partitions.enabled:true}") boolean enabled,
+                                 @Value("${togglr.audit.partitions.interval:MONTHLY}") AuditPartitionInterval interval,
+                                 @Value("${togglr.audit.partitions.premake:2}") int premake,
+                                 @Value("${togglr.audit.retention.days:0}") int retentionDays,
+                                 @Value("${togglr.audit.retention.archive-path:${java.io.tmpdir}/togglr/audit-archive}") Path archivePath) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.interval = interval;
+        this.premake = premake;
+        this.retentionDays = retentionDays;
+        this.archivePath = archivePath;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            // Startup waits for the lock: the table has to exist before Hibernate looks at it
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT pg_advisory_lock(" + LOCK_KEY + ")");
+            }
+
+            try {
+                createTable(connection);
+                updateIndexes(connection);
+                createPartitions(connection);
+            } finally {
+                unlock(connection);
+            }
+
+            return null;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${togglr.audit.partitions.maintenance-interval:3600000}",
+            initialDelayString = "${togglr.audit.partitions.maintenance-interval:3600000}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                if (!tryLock(connection)) {
+                    log.debug("Audit partition maintenance is running on another node");
+                    return null;
+                }
+
+                try {
+                    createPartitions(connection);
+
+                    if (retentionDays > 0) {
+                        detachExpired(connection, LocalDateTime.now().minusDays(retentionDays));
+                    }
+
+                    archiveDetached(connection);
+                } finally {
+                    unlock(connection);
+                }
+
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.error("Audit partition maintenance failed", e);
+        }
+    }
+
+    private void createTable(Connection connection) throws SQLException {
+        String kind = queryString(connection, "SELECT relkind::text FROM pg_class WHERE oid = to_regclass('" + TABLE + "')");
+
+        if ("p".equals(kind)) {
+            return;
+        }
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SEQUENCE IF NOT EXISTS audit_logs_seq");
+
+            if ("r".equals(kind)) {
+                // The old table keeps its rows as the first partition; its index names are freed for the parent's
+                statement.execute("ALTER TABLE " + TABLE + " RENAME TO " + LEGACY_PARTITION);
+
+                // A partition's primary key has to match the parent's (id, created_at)
+                String primaryKey = queryString(connection, "SELECT conname FROM pg_constraint " +
+                        "WHERE conrelid = to_regclass('" + LEGACY_PARTITION + "') AND contype = 'p'");
+
+                if (primaryKey != null) {
+                    statement.execute("ALTER TABLE " + LEGACY_PARTITION + " DROP CONSTRAINT \"" + primaryKey.replace("\"", "\"\"") + "\"");
+                }
+
+                statement.execute("ALTER TABLE " + LEGACY_PARTITION + " ADD CONSTRAINT " + LEGACY_PARTITION + "_pkey PRIMARY KEY (id, created_at)");
+
+                for (String index : INDEXES) {
+                    String name = index.substring(0, index.indexOf(' '));
+                    statement.execute("ALTER INDEX IF EXISTS " + name + " RENAME TO " + name + "_legacy");
+                }
+
+                for (String name : OBSOLETE_INDEXES) {
+                    statement.execute("DROP INDEX IF EXISTS " + name);
+                }
+
+                statement.execute("ALTER TABLE " + LEGACY_PARTITION + " ALTER COLUMN id DROP IDENTITY IF EXISTS");
+                statement.execute("ALTER TABLE " + LEGACY_PARTITION + " ALTER COLUMN id DROP DEFAULT");
+                statement.execute("ALTER TABLE " + LEGACY_PARTITION + " ADD COLUMN IF NOT EXISTS changes JSONB");
+                statement.execute("SELECT setval('audit_logs_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM " + LEGACY_PARTITION + "), false)");
+            }
+
+            statement.execute(CREATE_TABLE_SQL);
+
+            if ("r".equals(kind)) {
+                LocalDateTime upper = interval.next(interval.start(LocalDateTime.now()));
+                statement.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + LEGACY_PARTITION +
+                        " FOR VALUES FROM (MINVALUE) TO ('" + BOUND.format(upper) + "')");
+            }
+
+            statement.execute("CREATE TABLE IF NOT EXISTS " + DEFAULT_PARTITION + " PARTITION OF " + TABLE + " DEFAULT");
+            connection.commit();
+            log.info("Created partitioned {} table{}", TABLE, "r".equals(kind) ? ", existing rows kept in " + LEGACY_PARTITION : "");
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    // Creating an index on the partitioned table creates it on every partition, dropping one drops them all
+    private void updateIndexes(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String index : INDEXES) {
+                statement.execute("CREATE INDEX IF NOT EXISTS " + index);
+            }
+
+            for (String name : OBSOLETE_INDEXES) {
+                statement.execute("DROP INDEX IF EXISTS " + name);
+            }
+        }
+    }
+
+    private void createPartitions(Connection connection) throws SQLException {
+        LocalDateTime current = interval.start(LocalDateTime.now());
+        LocalDateTime until = current;
+
+        for (int i = 0; i <= premake; i++) {
+            until = interval.next(until);
+        }
+
+        List<Partition> existing = partitions(connection).stream().filter(partition -> partition.upper() != null).toList();
+        LocalDateTime start = current;
+
+        while (start.isBefore(until)) {
+            LocalDateTime from = start;
+            LocalDateTime end = interval.next(interval.start(start));
+
+            // Fills only the gaps between existing partitions, which also respects a legacy or differently sized range
+            List<Partition> overlapping = existing.stream().filter(partition -> partition.overlaps(from, end)).toList();
+            LocalDateTime covered = overlapping.stream().filter(partition -> !partition.startsAfter(from))
+                    .map(Partition::upper).max(LocalDateTime::compareTo).orElse(null);
+
+            if (covered != null) {
+                start = covered;
+                continue;
+            }
+
+            LocalDateTime to = overlapping.stream().map(Partition::lower).min(LocalDateTime::compareTo).orElse(end);
+            String name = PARTITION_PREFIX + SUFFIX.format(from);
+
+            try {
+                createPartition(connection, name, from, to);
+            } catch (SQLException e) {
+                // The range stays uncovered and is tried again by the next run; later ranges do not depend on it
+                log.warn("Could not create audit partition {}: {}", name, e.getMessage());
+            }
+
+            start = to;
+        }
+    }
+
+    private void createPartition(Connection connection, String name, LocalDateTime from, LocalDateTime to) throws SQLException {
+        String bounds = " FOR VALUES FROM ('" + BOUND.format(from) + "') TO ('" + BOUND.format(to) + "')";
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE " + name + " PARTITION OF " + TABLE + bounds);
+            return;
+        } catch (SQLException e) {
+            if (!CHECK_VIOLATION.equals(e.getSQLState())) {
+                throw e;
+            }
+        }
+
+        // Rows for this range already sit in the default partition: they move into the new partition before it is
+        // attached, all in one transaction, so readers see them in exactly one place
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+
+        try (Statement statement = connection.createStatement()) {
+            String range = " WHERE created_at >= '" + BOUND.format(from) + "' AND created_at < '" + BOUND.format(to) + "'";
+            statement.execute("CREATE TABLE " + name + " (LIKE " + TABLE + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+            int moved = statement.executeUpdate("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION + range + " RETURNING *) " +
+                    "INSERT INTO " + name + " SELECT * FROM moved");
+            statement.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + name + bounds);
+            connection.commit();
+            log.info("Created audit partition {} with {} rows moved out of {}", name, moved, DEFAULT_PARTITION);
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private void detachExpired(Connection connection, LocalDateTime cutoff) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (Partition partition : partitions(connection)) {
+                if (partition.upper() != null && !partition.upper().isAfter(cutoff)) {
+                    statement.execute("COMMENT ON TABLE " + partition.name() + " IS '" + DETACHED_COMMENT + "'");
+                    statement.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition.name());
+                    log.info("Detached audit partition {} (ended {})", partition.name(), partition.upper());
+                }
+            }
+        }
+    }
+
+    private void archiveDetached(Connection connection) throws SQLException {
+        List<String> detached = new ArrayList<>();
+
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT relname FROM pg_class WHERE relname LIKE ? AND relkind = 'r' AND NOT relispartition " +
+                        "AND relnamespace = to_regnamespace(current_schema()) AND obj_description(oid, 'pg_class') = ?")) {
+            statement.setString(1, PARTITION_PREFIX.replace("_", "\\_") + "%");
+            statement.setString(2, DETACHED_COMMENT);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    detached.add(resultSet.getString(1));
+                }
+            }
+        }
+
+        for (String name : detached) {
+            Path file;
+
+            try {
+                file = archive(connection, name);
+            } catch (IOException e) {
+                log.error("Failed to archive audit partition {}, keeping it", name, e);
+                continue;
+            }
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE " + name);
+            }
+
+            log.info("Archived audit partition {} to {} and dropped it", name, file);
+        }
+    }
+
+    private Path archive(Connection connection, String name) throws SQLException, IOException {
+        Files.createDirectories(archivePath);
+        Path file = archivePath.resolve(name + ".csv.gz");
+        Path temp = archivePath.resolve(name + ".csv.gz.tmp");
+        CopyManager copyManager = new CopyManager(connection.unwrap(BaseConnection.class));
+
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp), 64 * 1024)) {
+            copyManager.copyOut("COPY " + name + " TO STDOUT (FORMAT csv, HEADER)", out);
+        }
+
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return file;
+    }
+
+    private List<Partition> partitions(Connection connection) throws SQLException {
+        List<Partition> partitions = new ArrayList<>();
+
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i " +
+                             "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass('" + TABLE + "')")) {
+            while (resultSet.next()) {
+                String bound = resultSet.getString(2);
+                partitions.add(new Partition(resultSet.getString(1), bound(LOWER_BOUND, bound), bound(UPPER_BOUND, bound)));
+            }
+        }
+
+        return partitions;
+    }
+
+    private static LocalDateTime bound(Pattern pattern, String expression) {
+        Matcher matcher = pattern.matcher(expression);
+        return matcher.find() ? LocalDateTime.parse(matcher.group(1).replace(' ', 'T')) : null;
+    }
+
+    private boolean tryLock(Connection connection) throws SQLException {
+        return Boolean.parseBoolean(queryString(connection, "SELECT pg_try_advisory_lock(" + LOCK_KEY + ")::text"));
+    }
+
+    private void unlock(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SELECT pg_advisory_unlock(" + LOCK_KEY + ")");
+        }
+    }
+
+    private String queryString(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            return resultSet.next() ? resultSet.getString(1) : null;
+        }
+    }
+
+    /** Lower bound is null for MINVALUE, both are null for the default partition. */
+    private record Partition(String name, LocalDateTime lower, LocalDateTime upper) {
+        boolean startsAfter(LocalDateTime time) {
+            return lower != null && lower.isAfter(time);
+        }
+
+        boolean overlaps(LocalDateTime from, LocalDateTime to) {
+            return upper.isAfter(from) && (lower == null || lower.isBefore(to));
+        }
+    }
+
+    /**
+     * Makes the EntityManagerFactory, and with it Hibernate's schema update, wait for {@link #initialize()}.
+     */
+    @Component
+    static class EntityManagerFactoryDependency extends EntityManagerFactoryDependsOnPostProcessor {
+        EntityManagerFactoryDependency() {
+            super(AuditPartitionManager.class);
+        }
+    }
+}
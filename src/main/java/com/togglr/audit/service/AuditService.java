@@ -2,55 +2,84 @@ package com.togglr.audit.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.togglr.audit.entity.AuditLog;
+import com.togglr.audit.enums.AuditAccessMode;
 import com.togglr.audit.enums.AuditAction;
 import com.togglr.audit.enums.DataSource;
 import com.togglr.audit.enums.EntityType;
-import com.togglr.audit.repository.AuditLogRepository;
-import lombok.RequiredArgsConstructor;
+import com.togglr.feature.entity.Feature;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
-import java.util.Iterator;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
-import static java.util.Arrays.asList;
-
 @Log4j2
 @Service
-@RequiredArgsConstructor
 public class AuditService {
-    private final AuditLogRepository auditLogRepository;
+    private static final long BATCH_ENTITY_ID = 0L;
+    private static final List<String> SKIPPED_FIELDS = List.of("id", "createdAt", "updatedAt");
+
+    private final AuditWriter auditWriter;
+    private final AccessRollupAggregator accessRollupAggregator;
     private final ObjectMapper objectMapper;
+    private final AuditAccessMode accessMode;
+
+    public AuditService(AuditWriter auditWriter,
+                        AccessRollupAggregator accessRollupAggregator,
+                        ObjectMapper objectMapper,
+                        @Value("${togglr.audit.access-mode:ROLLUP}") AuditAccessMode accessMode) {
+        this.auditWriter = auditWriter;
+        this.accessRollupAggregator = accessRollupAggregator;
+        this.objectMapper = objectMapper;
+        this.accessMode = accessMode;
+    }
 
     public void logAccess(EntityType entityType, Long entityId, String entityName, DataSource dataSource) {
+        if (accessMode == AuditAccessMode.ROLLUP) {
+            accessRollupAggregator.record(entityType, entityId, entityName, getCurrentUsername(), getCurrentUserType(), dataSource);
+            return;
+        }
+
         logAudit(AuditAction.ACCESS, entityType, entityId, entityName, null, null, dataSource);
     }
 
+    public void logBatchAccess(EntityType entityType, String entityName, Map<Long, String> accessed, DataSource dataSource) {
+        if (accessMode == AuditAccessMode.ROLLUP) {
+            // Rolled up per feature, so batch reads show up in each feature's access history
+            String username = getCurrentUsername();
+            String userType = getCurrentUserType();
+            accessed.forEach((id, name) -> accessRollupAggregator.record(entityType, id, name, username, userType, dataSource));
+            return;
+        }
+
+        logAudit(AuditAction.ACCESS, entityType, BATCH_ENTITY_ID, entityName, null, accessed, dataSource);
+    }
+
     public void logCreate(EntityType entityType, Long entityId, String entityName, Object newEntity) {
         logAudit(AuditAction.CREATE, entityType, entityId, entityName, null, newEntity, DataSource.DATABASE);
     }
 
     public void logUpdate(EntityType entityType, Long entityId, String entityName, Object oldEntity, Object newEntity) {
-        try {
-            JsonNode oldJson = objectMapper.valueToTree(oldEntity);
-            JsonNode newJson = objectMapper.valueToTree(newEntity);
-
-            ObjectNode oldValues = objectMapper.createObjectNode();
-            ObjectNode newValues = objectMapper.createObjectNode();
-
-            findChanges(oldJson, newJson, oldValues, newValues);
+        ArrayNode changes;
 
-            if (!oldValues.isEmpty() || !newValues.isEmpty()) {
-                logAudit(AuditAction.UPDATE, entityType, entityId, entityName, oldValues, newValues, DataSource.DATABASE);
-            }
+        try {
+            changes = JsonPatchDiff.diff(auditedState(oldEntity), auditedState(newEntity));
         } catch (Exception e) {
+            log.warn("Could not diff {} {}, storing both versions", entityType, entityId, e);
             logAudit(AuditAction.UPDATE, entityType, entityId, entityName, oldEntity, newEntity, DataSource.DATABASE);
+            return;
+        }
+
+        if (!changes.isEmpty()) {
+            logAudit(AuditAction.UPDATE, entityType, entityId, entityName, null, null, changes, DataSource.DATABASE);
         }
     }
 
@@ -60,27 +89,27 @@ public class AuditService {
 
     private void logAudit(AuditAction action, EntityType entityType, Long entityId,
                           String entityName, Object oldValues, Object newValues, DataSource dataSource) {
-        try {
-            AuditLog auditLog = new AuditLog();
-            auditLog.setUsername(getCurrentUsername());
-            auditLog.setAction(action);
-            auditLog.setEntityType(entityType);
-            auditLog.setEntityId(entityId);
-            auditLog.setEntityName(entityName);
-            auditLog.setIpAddress(getCurrentIpAddress());
-            auditLog.setTraceId(getCurrentTraceId());
-            auditLog.setUserType(getCurrentUserType());
-            auditLog.setDataSource(dataSource);
-
-            if (oldValues != null) {
-                auditLog.setOldValues(objectMapper.writeValueAsString(oldValues));
-            }
-
-            if (newValues != null) {
-                auditLog.setNewValues(objectMapper.writeValueAsString(newValues));
-            }
+        logAudit(action, entityType, entityId, entityName, oldValues, newValues, null, dataSource);
+    }
 
-            auditLogRepository.save(auditLog);
+    private void logAudit(AuditAction action, EntityType entityType, Long entityId, String entityName,
+                          Object oldValues, Object newValues, JsonNode changes, DataSource dataSource) {
+        try {
+            auditWriter.submit(new AuditEvent(
+                    getCurrentUsername(),
+                    action,
+                    entityType,
+                    entityId,
+                    entityName,
+                    oldValues != null ? objectMapper.writeValueAsString(oldValues) : null,
+                    newValues != null ? objectMapper.writeValueAsString(newValues) : null,
+                    changes != null ? objectMapper.writeValueAsString(changes) : null,
+                    dataSource,
+                    getCurrentIpAddress(),
+                    getCurrentTraceId(),
+                    getCurrentUserType(),
+                    LocalDateTime.now()
+            ));
         } catch (Exception e) {
             log.error("Error logging audit", e);
         }
@@ -101,30 +130,23 @@ public class AuditService {
         return null;
     }
 
-    private void findChanges(JsonNode oldJson, JsonNode newJson, ObjectNode oldValues, ObjectNode newValues) {
-        String[] skipFields = {"updatedAt", "createdAt", "id", "namespace", "environment"};
-        Iterator<Map.Entry<String, JsonNode>> fields = newJson.fields();
-
-        while (fields.hasNext()) {
-            Map.Entry<String, JsonNode> field = fields.next();
-            String fieldName = field.getKey();
-
-            if (asList(skipFields).contains(fieldName)) {
-                continue;
-            }
-
-            JsonNode newValue = field.getValue();
-            JsonNode oldValue = oldJson.get(fieldName);
-
-            if (oldValue == null || !oldValue.equals(newValue)) {
-                if (oldValue != null) {
-                    oldValues.set(fieldName, oldValue);
-                }
-                newValues.set(fieldName, newValue);
-            }
+    /**
+     * The fields an UPDATE can change. Features are read field by field so the lazy namespace and
+     * environment associations are never touched, other entities fall back to their JSON form.
+     */
+    private JsonNode auditedState(Object entity) {
+        if (entity instanceof Feature feature) {
+            ObjectNode state = objectMapper.createObjectNode();
+            state.put("name", feature.getName());
+            state.put("enabled", feature.getEnabled());
+            state.set("metadata", feature.getMetadata());
+            return state;
         }
-    }
 
+        ObjectNode state = objectMapper.valueToTree(entity);
+        state.remove(SKIPPED_FIELDS);
+        return state;
+    }
 
     private String getCurrentTraceId() {
         ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
@@ -0,0 +1,418 @@
+package com.togglr.audit.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.togglr.audit.enums.AuditAction;
+import com.togglr.audit.enums.AuditOverflowPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes audit events off the request path. Events are queued in memory and a single background thread
+ * inserts them in JDBC batches, once {@code batch-size} events are waiting or {@code flush-interval} ms
+ * after the first one arrived. On shutdown the queue is drained before the data source goes away; events
+ * submitted after that are written on the caller's thread.
+ */
+@Log4j2
+@Component
+public class AuditWriter {
+    static final String INSERT_SQL = "INSERT INTO audit_logs (username, action, entity_type, entity_id, entity_name, " +
+            "old_values, new_values, changes, data_source, ip_address, trace_id, user_type, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, CAST(? AS jsonb), ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<AuditEvent> queue;
+    private final int batchSize;
+    private final long flushInterval;
+    private final long shutdownTimeout;
+    private final long blockTimeout;
+    private final AuditOverflowPolicy overflowPolicy;
+    private final Path spillPath;
+    private final Path rejectedPath;
+    private final Object spillLock = new Object();
+    private final Timer flushTimer;
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter spilled;
+    private final Counter failed;
+    private final Counter rejected;
+    private final Thread worker = new Thread(this::run, "audit-writer");
+    private volatile boolean running = true;
+
+    public AuditWriter(JdbcTemplate jdbcTemplate,
+                       ObjectMapper objectMapper,
+                       MeterRegistry meterRegistry,
+                       @Value("${togglr.audit.writer.queue-capacity:10000}") int queueCapacity,
+                       @Value("${togglr.audit.writer.batch-size:500}") int batchSize,
+                       @Value("${togglr.audit.writer.flush-interval:1000}") long flushInterval,
+                       @Value("${togglr.audit.writer.shutdown-timeout:10000}") long shutdownTimeout,
+                       @Value("${togglr.audit.writer.block-timeout:5000}") long blockTimeout,
+                       @Value("${togglr.audit.writer.overflow-policy:DROP_ACCESS}") AuditOverflowPolicy overflowPolicy,
+                       @Value("${togglr.audit.writer.spill-path:${java.io.tmpdir}/togglr/audit-spill.ndjson}") Path spillPath) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.shutdownTimeout = shutdownTimeout;
+        this.blockTimeout = blockTimeout;
+        this.overflowPolicy = overflowPolicy;
+        this.spillPath = spillPath;
+        this.rejectedPath = spillPath.resolveSibling(spillPath.getFileName() + ".rejected");
+        this.flushTimer = Timer.builder("togglr.audit.flush")
+                .description("Time spent inserting one batch of audit events")
+                .register(meterRegistry);
+        this.written = eventCounter(meterRegistry, "written");
+        this.dropped = eventCounter(meterRegistry, "dropped");
+        this.spilled = eventCounter(meterRegistry, "spilled");
+        this.failed = eventCounter(meterRegistry, "failed");
+        this.rejected = eventCounter(meterRegistry, "rejected");
+        Gauge.builder("togglr.audit.queue.size", queue, BlockingQueue::size)
+                .description("Audit events waiting to be written")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public void submit(AuditEvent event) {
+        if (!running) {
+            write(List.of(event));
+            return;
+        }
+
+        if (queue.offer(event)) {
+            // stop() may have run between the check and the offer, after the worker last looked at the queue
+            if (!running && queue.remove(event)) {
+                write(List.of(event));
+            }
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case SPILL -> spill(List.of(event));
+            case DROP_ACCESS -> {
+                if (event.action() == AuditAction.ACCESS) {
+                    dropped.increment();
+                } else {
+                    block(event);
+                }
+            }
+            case BLOCK -> block(event);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.join(shutdownTimeout);
+
+        if (worker.isAlive()) {
+            log.warn("Audit writer did not drain within {} ms, {} events left", shutdownTimeout, queue.size());
+        }
+    }
+
+    private void run() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditEvent first = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+
+                if (first == null) {
+                    replaySpill();
+                    continue;
+                }
+
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval);
+
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+
+                    AuditEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+
+                    if (next == null) {
+                        break;
+                    }
+
+                    batch.add(next);
+                }
+
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Unexpected audit writer failure", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<AuditEvent> batch) {
+        if (insert(batch) == InsertResult.WRITTEN) {
+            return;
+        }
+
+        if (overflowPolicy == AuditOverflowPolicy.SPILL) {
+            spill(batch);
+        } else {
+            failed.increment(batch.size());
+        }
+    }
+
+    private InsertResult insert(List<AuditEvent> batch) {
+        try {
+            flushTimer.record(() -> jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (statement, event) -> {
+                Timestamp createdAt = Timestamp.valueOf(event.createdAt());
+                statement.setString(1, event.username());
+                statement.setString(2, event.action().name());
+                statement.setString(3, event.entityType().name());
+                statement.setLong(4, event.entityId());
+                statement.setString(5, event.entityName());
+                statement.setString(6, event.oldValues());
+                statement.setString(7, event.newValues());
+                statement.setString(8, event.changes());
+                statement.setString(9, event.dataSource() != null ? event.dataSource().name() : null);
+                statement.setString(10, event.ipAddress());
+                statement.setString(11, event.traceId());
+                statement.setString(12, event.userType());
+                statement.setTimestamp(13, createdAt);
+                statement.setTimestamp(14, createdAt);
+            }));
+            written.increment(batch.size());
+            return InsertResult.WRITTEN;
+        } catch (RuntimeException e) {
+            log.error("Failed to write {} audit events", batch.size(), e);
+            return isRejection(e) ? InsertResult.REJECTED : InsertResult.FAILED;
+        }
+    }
+
+    // The database refused the data itself, e.g. a constraint or a malformed value, so a retry fails the same way;
+    // an unreachable database is non-transient to Spring as well but comes back
+    private static boolean isRejection(RuntimeException e) {
+        return e instanceof NonTransientDataAccessException && !(e instanceof DataAccessResourceFailureException);
+    }
+
+    private void block(AuditEvent event) {
+        try {
+            if (!queue.offer(event, blockTimeout, TimeUnit.MILLISECONDS)) {
+                log.warn("Audit queue stayed full for {} ms, dropping {} event", blockTimeout, event.action());
+                dropped.increment();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.increment();
+        }
+    }
+
+    private void spill(List<AuditEvent> events) {
+        synchronized (spillLock) {
+            try {
+                Files.createDirectories(spillPath.toAbsolutePath().getParent());
+
+                try (BufferedWriter writer = Files.newBufferedWriter(spillPath, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    for (AuditEvent event : events) {
+                        writer.write(objectMapper.writeValueAsString(event));
+                        writer.newLine();
+                    }
+                }
+
+                spilled.increment(events.size());
+            } catch (IOException e) {
+                log.error("Failed to spill {} audit events to {}", events.size(), spillPath, e);
+                failed.increment(events.size());
+            }
+        }
+    }
+
+    /**
+     * Writes the spill file back in batches. A replay that fails part-way keeps the events it has not
+     * written yet and is resumed before any newer spill file is picked up. Events the database rejects
+     * are moved to the {@code .rejected} file next to it instead of being retried forever.
+     */
+    private void replaySpill() {
+        Path replaying = spillPath.resolveSibling(spillPath.getFileName() + ".replaying");
+
+        synchronized (spillLock) {
+            try {
+                if (!Files.exists(replaying)) {
+                    if (!Files.exists(spillPath)) {
+                        return;
+                    }
+
+                    Files.move(spillPath, replaying);
+                }
+            } catch (IOException e) {
+                log.warn("Failed to pick up audit spill file {}: {}", spillPath, e.getMessage());
+                return;
+            }
+        }
+
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        long replayed = 0;
+        boolean complete = false;
+
+        try (BufferedReader reader = Files.newBufferedReader(replaying, StandardCharsets.UTF_8)) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                batch.add(objectMapper.readValue(line, AuditEvent.class));
+
+                if (batch.size() == batchSize) {
+                    int handled = replay(batch);
+                    replayed += handled;
+
+                    if (handled < batch.size()) {
+                        break;
+                    }
+
+                    batch.clear();
+                }
+            }
+
+            if (line == null && !batch.isEmpty()) {
+                int handled = replay(batch);
+                replayed += handled;
+                complete = handled == batch.size();
+            } else {
+                complete = line == null;
+            }
+        } catch (IOException e) {
+            Path failedPath = replaying.resolveSibling(replaying.getFileName() + "." + System.currentTimeMillis() + ".failed");
+            log.error("Failed to replay audit spill file {}, moving it to {}", replaying, failedPath, e);
+            moveAside(replaying, failedPath);
+            return;
+        }
+
+        try {
+            if (complete) {
+                Files.delete(replaying);
+                log.info("Replayed spilled audit events from {}", spillPath);
+            } else if (replayed > 0) {
+                dropReplayed(replaying, replayed);
+            }
+        } catch (IOException e) {
+            log.error("Failed to update audit spill file {}", replaying, e);
+        }
+    }
+
+    /**
+     * Returns how many events from the start of {@code batch} were written or rejected. A rejected batch is
+     * retried one event at a time, so only the events the database refuses on their own are set aside.
+     */
+    private int replay(List<AuditEvent> batch) {
+        InsertResult result = insert(batch);
+
+        if (result != InsertResult.REJECTED) {
+            return result == InsertResult.WRITTEN ? batch.size() : 0;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            AuditEvent event = batch.get(i);
+            InsertResult single = insert(List.of(event));
+
+            if (single == InsertResult.FAILED || single == InsertResult.REJECTED && !reject(event)) {
+                return i;
+            }
+        }
+
+        return batch.size();
+    }
+
+    private boolean reject(AuditEvent event) {
+        try (BufferedWriter writer = Files.newBufferedWriter(rejectedPath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(objectMapper.writeValueAsString(event));
+            writer.newLine();
+        } catch (IOException e) {
+            log.error("Failed to move rejected audit event to {}, keeping it in the spill file", rejectedPath, e);
+            return false;
+        }
+
+        log.warn("Moved {} audit event of {} {} rejected by the database to {}", event.action(), event.entityType(),
+                event.entityId(), rejectedPath);
+        rejected.increment();
+        return true;
+    }
+
+    private static void dropReplayed(Path replaying, long replayed) throws IOException {
+        Path remaining = replaying.resolveSibling(replaying.getFileName() + ".tmp");
+
+        try (BufferedReader reader = Files.newBufferedReader(replaying, StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(remaining, StandardCharsets.UTF_8)) {
+            String line;
+            long skipped = 0;
+
+            while ((line = reader.readLine()) != null) {
+                if (skipped++ < replayed) {
+                    continue;
+                }
+
+                writer.write(line);
+                writer.newLine();
+            }
+        }
+
+        Files.move(remaining, replaying, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void moveAside(Path replaying, Path failedPath) {
+        try {
+            Files.move(replaying, failedPath);
+        } catch (IOException e) {
+            log.warn("Failed to move audit spill file {} aside: {}", replaying, e.getMessage());
+        }
+    }
+
+    private static Counter eventCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("togglr.audit.events")
+                .description("Audit events by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private enum InsertResult {
+        WRITTEN,
+        /** Worth retrying, e.g. the database is unreachable. */
+        FAILED,
+        /** The database refused the events themselves. */
+        REJECTED
+    }
+}
@@ -0,0 +1,46 @@
+package com.togglr.audit.service;
+
+import com.togglr.audit.enums.EntityType;
+import com.togglr.feature.entity.Environment;
+import com.togglr.feature.entity.Feature;
+import com.togglr.feature.entity.Namespace;
+import com.togglr.feature.event.EnvironmentDeletedEvent;
+import com.togglr.feature.event.FeatureDeletedEvent;
+import com.togglr.feature.event.FeatureUpdatedEvent;
+import com.togglr.feature.event.NamespaceDeletedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Audits updates and deletes from the entities the write path already loaded, once the change has committed.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChangeAuditListener {
+    private final AuditService auditService;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFeatureUpdated(FeatureUpdatedEvent event) {
+        Feature after = event.after();
+        auditService.logUpdate(EntityType.FEATURE, after.getId(), after.getName(), event.before(), after);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFeatureDeleted(FeatureDeletedEvent event) {
+        Feature feature = event.feature();
+        auditService.logDelete(EntityType.FEATURE, feature.getId(), feature.getName(), feature);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNamespaceDeleted(NamespaceDeletedEvent event) {
+        Namespace namespace = event.namespace();
+        auditService.logDelete(EntityType.NAMESPACE, namespace.getId(), namespace.getName(), namespace);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEnvironmentDeleted(EnvironmentDeletedEvent event) {
+        Environment environment = event.environment();
+        auditService.logDelete(EntityType.ENVIRONMENT, environment.getId(), environment.getName(), environment);
+    }
+}
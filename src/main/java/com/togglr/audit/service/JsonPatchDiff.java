@@ -0,0 +1,135 @@
+package com.togglr.audit.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Structural diff of two JSON documents as an RFC 6902 JSON Patch.
+ * Objects and arrays are compared member by member, so a change deep inside a large document
+ * yields operations on that path only. Every {@code replace} and {@code remove} is preceded by a
+ * {@code test} holding the previous value, which keeps the before-image in the patch itself.
+ */
+public final class JsonPatchDiff {
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    private JsonPatchDiff() {
+    }
+
+    public static ArrayNode diff(JsonNode source, JsonNode target) {
+        ArrayNode patch = NODES.arrayNode();
+        diff(patch, new StringBuilder(), source, target);
+        return patch;
+    }
+
+    // The path is one shared builder, extended on the way down and cut back on the way up,
+    // so walking unchanged members costs no string allocation.
+    private static void diff(ArrayNode patch, StringBuilder path, JsonNode source, JsonNode target) {
+        // Unchanged subtrees, the common case, are skipped by one equals() without descending into them
+        if (source.equals(target)) {
+            return;
+        }
+
+        if (source.isObject() && target.isObject()) {
+            diffObjects(patch, path, source, target);
+        } else if (source.isArray() && target.isArray()) {
+            diffArrays(patch, path, source, target);
+        } else {
+            replace(patch, path.toString(), source, target);
+        }
+    }
+
+    private static void diffObjects(ArrayNode patch, StringBuilder path, JsonNode source, JsonNode target) {
+        int length = path.length();
+        Iterator<Map.Entry<String, JsonNode>> sourceFields = source.fields();
+
+        while (sourceFields.hasNext()) {
+            Map.Entry<String, JsonNode> field = sourceFields.next();
+            JsonNode targetValue = target.get(field.getKey());
+            appendName(path, field.getKey());
+
+            if (targetValue == null) {
+                remove(patch, path.toString(), field.getValue());
+            } else {
+                diff(patch, path, field.getValue(), targetValue);
+            }
+
+            path.setLength(length);
+        }
+
+        Iterator<Map.Entry<String, JsonNode>> targetFields = target.fields();
+
+        while (targetFields.hasNext()) {
+            Map.Entry<String, JsonNode> field = targetFields.next();
+
+            if (!source.has(field.getKey())) {
+                add(patch, appendName(path, field.getKey()).toString(), field.getValue());
+                path.setLength(length);
+            }
+        }
+    }
+
+    private static void diffArrays(ArrayNode patch, StringBuilder path, JsonNode source, JsonNode target) {
+        int length = path.length();
+        int common = Math.min(source.size(), target.size());
+
+        for (int i = 0; i < common; i++) {
+            diff(patch, path.append('/').append(i), source.get(i), target.get(i));
+            path.setLength(length);
+        }
+
+        for (int i = common; i < target.size(); i++) {
+            add(patch, path.append('/').append(i).toString(), target.get(i));
+            path.setLength(length);
+        }
+
+        // Highest index first, so the indices of the remaining elements stay valid
+        for (int i = source.size() - 1; i >= common; i--) {
+            remove(patch, path.append('/').append(i).toString(), source.get(i));
+            path.setLength(length);
+        }
+    }
+
+    private static void add(ArrayNode patch, String path, JsonNode value) {
+        operation(patch, "add", path).set("value", value);
+    }
+
+    private static void remove(ArrayNode patch, String path, JsonNode previous) {
+        operation(patch, "test", path).set("value", previous);
+        operation(patch, "remove", path);
+    }
+
+    private static void replace(ArrayNode patch, String path, JsonNode previous, JsonNode value) {
+        operation(patch, "test", path).set("value", previous);
+        operation(patch, "replace", path).set("value", value);
+    }
+
+    private static ObjectNode operation(ArrayNode patch, String op, String path) {
+        return patch.addObject()
+                .put("op", op)
+                .put("path", path);
+    }
+
+    // RFC 6901: '~' and '/' inside a member name are written as ~0 and ~1
+    private static StringBuilder appendName(StringBuilder path, String name) {
+        path.append('/');
+
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+
+            if (c == '~') {
+                path.append("~0");
+            } else if (c == '/') {
+                path.append("~1");
+            } else {
+                path.append(c);
+            }
+        }
+
+        return path;
+    }
+}
@@ -0,0 +1,32 @@
+package com.togglr.common.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Tells the other nodes that a key changed, so they drop or reload what they keep of it locally.
+ * A region names what the key belongs to: a cache, or node-local state such as feature snapshots.
+ */
+public interface CacheInvalidationBus {
+    /**
+     * The bus of a single node: there is nobody to tell.
+     */
+    CacheInvalidationBus LOCAL = new CacheInvalidationBus() {
+        @Override
+        public void publish(String region, String key) {
+        }
+
+        @Override
+        public void subscribe(String region, Consumer<String> listener) {
+        }
+    };
+
+    /**
+     * Publishes a change of {@code key}, or of the whole region when {@code key} is null.
+     */
+    void publish(String region, String key);
+
+    /**
+     * Registers a listener for changes made on other nodes; it receives null when the whole region changed.
+     */
+    void subscribe(String region, Consumer<String> listener);
+}
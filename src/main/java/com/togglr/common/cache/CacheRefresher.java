@@ -0,0 +1,64 @@
+package com.togglr.common.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs refresh-ahead reloads for {@link SingleFlightCache}s on a small bounded pool. Entries older than
+ * the soft TTL are reloaded in the background while callers keep getting the cached value; the store's
+ * own expiry stays the hard upper bound. When the queue is full a refresh is skipped, not queued.
+ */
+public class CacheRefresher {
+    private final long softTtl;
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+
+    public CacheRefresher(long softTtl, int threads, int queueSize, MeterRegistry meterRegistry) {
+        AtomicInteger threadCount = new AtomicInteger();
+
+        this.softTtl = softTtl;
+        this.meterRegistry = meterRegistry;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-refresh-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public boolean isEnabled() {
+        return softTtl > 0;
+    }
+
+    boolean isStale(long loadedAt, long now) {
+        return now - loadedAt >= softTtl;
+    }
+
+    boolean submit(Runnable refresh) {
+        try {
+            executor.execute(refresh);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    Counter counter(String cacheName, String result) {
+        return Counter.builder("togglr.cache.refresh")
+                .description("Refresh-ahead reloads of cache entries past their soft TTL")
+                .tag("name", cacheName)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
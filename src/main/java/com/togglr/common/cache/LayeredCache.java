@@ -0,0 +1,183 @@
+package com.togglr.common.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+/**
+ * A per-node Caffeine near cache (L1) in front of a shared remote cache (L2).
+ * Every local write is reported to {@code invalidations} so other nodes can drop their L1 copy;
+ * the L1 TTL bounds staleness should such a message be lost.
+ */
+public class LayeredCache implements Cache {
+    private final Cache remote;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> near;
+    private final Consumer<Object> invalidations;
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+
+    public LayeredCache(Cache remote, Duration nearTtl, long nearMaximumSize, Consumer<Object> invalidations, MeterRegistry meterRegistry) {
+        this.remote = remote;
+        this.invalidations = invalidations;
+        this.near = Caffeine.newBuilder()
+                .maximumSize(nearMaximumSize)
+                .expireAfterWrite(nearTtl)
+                .build();
+        this.l1Hits = tierCounter(meterRegistry, "l1", "hit");
+        this.l1Misses = tierCounter(meterRegistry, "l1", "miss");
+        this.l2Hits = tierCounter(meterRegistry, "l2", "hit");
+        this.l2Misses = tierCounter(meterRegistry, "l2", "miss");
+    }
+
+    @Override
+    public String getName() {
+        return remote.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object nearValue = near.getIfPresent(key);
+
+        if (nearValue != null) {
+            l1Hits.increment();
+            return new SimpleValueWrapper(nearValue);
+        }
+
+        l1Misses.increment();
+        ValueWrapper remoteValue = remote.get(key);
+
+        if (remoteValue == null) {
+            l2Misses.increment();
+            return null;
+        }
+
+        l2Hits.increment();
+
+        if (remoteValue.get() != null) {
+            near.put(key, remoteValue.get());
+        }
+
+        return remoteValue;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+
+        T value;
+
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+
+        if (value != null) {
+            near.put(key, value);
+        } else {
+            near.invalidate(key);
+        }
+
+        invalidations.accept(key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+
+        if (existing == null) {
+            put(key, value);
+        }
+
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        near.invalidate(key);
+        invalidations.accept(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = remote.evictIfPresent(key);
+        near.invalidate(key);
+        invalidations.accept(key);
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        near.invalidateAll();
+        invalidations.accept(null);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = remote.invalidate();
+        near.invalidateAll();
+        invalidations.accept(null);
+        return invalidated;
+    }
+
+    /**
+     * Drops the L1 copy only, in reaction to a write made on another node.
+     */
+    void evictNear(Object key) {
+        if (key == null) {
+            near.invalidateAll();
+        } else {
+            near.invalidate(key);
+        }
+    }
+
+    private Counter tierCounter(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("togglr.cache.tier.gets")
+                .description("Layered cache lookups per tier")
+                .tag("cache", remote.getName())
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
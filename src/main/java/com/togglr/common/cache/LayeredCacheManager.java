@@ -0,0 +1,59 @@
+package com.togglr.common.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Builds {@link LayeredCache}s over a Redis-backed cache manager and keeps the near caches of all
+ * nodes coherent through a {@link CacheInvalidationBus}, using the cache name as region.
+ */
+public class LayeredCacheManager implements CacheManager {
+    private final CacheManager remote;
+    private final CacheInvalidationBus invalidationBus;
+    private final Duration nearTtl;
+    private final long nearMaximumSize;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, LayeredCache> caches = new ConcurrentHashMap<>();
+
+    public LayeredCacheManager(CacheManager remote, CacheInvalidationBus invalidationBus,
+                               Duration nearTtl, long nearMaximumSize, MeterRegistry meterRegistry) {
+        this.remote = remote;
+        this.invalidationBus = invalidationBus;
+        this.nearTtl = nearTtl;
+        this.nearMaximumSize = nearMaximumSize;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        LayeredCache cache = caches.get(name);
+
+        if (cache != null) {
+            return cache;
+        }
+
+        Cache target = remote.getCache(name);
+
+        if (target == null) {
+            return null;
+        }
+
+        return caches.computeIfAbsent(name, key -> {
+            LayeredCache created = new LayeredCache(target, nearTtl, nearMaximumSize,
+                    evictedKey -> invalidationBus.publish(name, evictedKey != null ? evictedKey.toString() : null), meterRegistry);
+            invalidationBus.subscribe(name, created::evictNear);
+            return created;
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+}
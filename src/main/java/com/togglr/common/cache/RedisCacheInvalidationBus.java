@@ -0,0 +1,86 @@
+package com.togglr.common.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Carries invalidations over Redis pub/sub. Messages are {@code E|node|region|key} for one key and
+ * {@code C|node|region} for a whole region; a node ignores its own messages. A lost message is
+ * not retried, so every listener must have another way to catch up, e.g. a TTL or a periodic refresh.
+ */
+@Slf4j
+public class RedisCacheInvalidationBus implements CacheInvalidationBus, MessageListener {
+    public static final String INVALIDATION_CHANNEL = "togglr:cache:invalidation";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+
+    public RedisCacheInvalidationBus(StringRedisTemplate redisTemplate, RedisMessageListenerContainer listenerContainer) {
+        this.redisTemplate = redisTemplate;
+        listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    @Override
+    public void publish(String region, String key) {
+        String message = key == null
+                ? "C|" + nodeId + "|" + region
+                : "E|" + nodeId + "|" + region + "|" + key;
+
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, message);
+        } catch (Exception e) {
+            log.warn("Failed to publish invalidation for {}: {}", region, e.getMessage());
+        }
+    }
+
+    @Override
+    public void subscribe(String region, Consumer<String> listener) {
+        listeners.computeIfAbsent(region, name -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+
+        if (parts.length < 3 || nodeId.equals(parts[1])) {
+            return;
+        }
+
+        List<Consumer<String>> regionListeners = listeners.get(parts[2]);
+
+        if (regionListeners == null) {
+            return;
+        }
+
+        String key;
+
+        if ("C".equals(parts[0])) {
+            key = null;
+        } else if ("E".equals(parts[0]) && parts.length == 4) {
+            key = parts[3];
+        } else {
+            return;
+        }
+
+        for (Consumer<String> listener : regionListeners) {
+            try {
+                listener.accept(key);
+            } catch (RuntimeException e) {
+                log.warn("Failed to apply invalidation for {}: {}", parts[2], e.getMessage());
+            }
+        }
+    }
+}
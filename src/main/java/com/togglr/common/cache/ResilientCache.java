@@ -0,0 +1,142 @@
+package com.togglr.common.cache;
+
+import com.togglr.common.resilience.CircuitBreaker;
+import com.togglr.common.resilience.CircuitBreakerOpenException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Guards a remote cache with a circuit breaker. A failing or open cache behaves as an empty one:
+ * reads miss, writes are dropped, so callers fall through to the loader instead of failing.
+ */
+@Slf4j
+public class ResilientCache implements Cache {
+    @Getter
+    private final Cache delegate;
+    private final CircuitBreaker circuitBreaker;
+
+    public ResilientCache(Cache delegate, CircuitBreaker circuitBreaker) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        try {
+            return circuitBreaker.call(() -> delegate.get(key));
+        } catch (RuntimeException e) {
+            logFailure("read", key, e);
+            return null;
+        }
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        try {
+            return circuitBreaker.call(() -> delegate.get(key, type));
+        } catch (RuntimeException e) {
+            logFailure("read", key, e);
+            return null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        // Not delegated as a whole, or a failing loader would count against the cache
+        ValueWrapper cached = get(key);
+
+        if (cached != null) {
+            return (T) cached.get();
+        }
+
+        T value;
+
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        try {
+            circuitBreaker.run(() -> delegate.put(key, value));
+        } catch (RuntimeException e) {
+            logFailure("write", key, e);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        try {
+            return circuitBreaker.call(() -> delegate.putIfAbsent(key, value));
+        } catch (RuntimeException e) {
+            logFailure("write", key, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        try {
+            circuitBreaker.run(() -> delegate.evict(key));
+        } catch (RuntimeException e) {
+            logFailure("evict", key, e);
+        }
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        try {
+            return circuitBreaker.call(() -> delegate.evictIfPresent(key));
+        } catch (RuntimeException e) {
+            logFailure("evict", key, e);
+            return false;
+        }
+    }
+
+    @Override
+    public void clear() {
+        try {
+            circuitBreaker.run(delegate::clear);
+        } catch (RuntimeException e) {
+            logFailure("clear", null, e);
+        }
+    }
+
+    @Override
+    public boolean invalidate() {
+        try {
+            return circuitBreaker.call(delegate::invalidate);
+        } catch (RuntimeException e) {
+            logFailure("clear", null, e);
+            return false;
+        }
+    }
+
+    private void logFailure(String operation, Object key, RuntimeException e) {
+        if (e instanceof CircuitBreakerOpenException) {
+            log.debug("Skipped cache {} of {} entry {}: {}", operation, getName(), key, e.getMessage());
+        } else {
+            log.warn("Cache {} of {} entry {} failed: {}", operation, getName(), key, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.togglr.common.cache;
+
+import com.togglr.common.resilience.CircuitBreaker;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class ResilientCacheManager implements CacheManager {
+    private final CacheManager delegate;
+    private final CircuitBreaker circuitBreaker;
+    private final ConcurrentMap<String, ResilientCache> caches = new ConcurrentHashMap<>();
+
+    public ResilientCacheManager(CacheManager delegate, CircuitBreaker circuitBreaker) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        ResilientCache cache = caches.get(name);
+
+        if (cache != null) {
+            return cache;
+        }
+
+        Cache target = delegate.getCache(name);
+
+        if (target == null) {
+            return null;
+        }
+
+        return caches.computeIfAbsent(name, key -> new ResilientCache(target, circuitBreaker));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+}
@@ -0,0 +1,172 @@
+package com.togglr.common.cache;
+
+import com.togglr.common.concurrent.SingleFlight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decorates a {@link Cache} so that {@code @Cacheable(sync = true)} misses are loaded once per key
+ * on this node, whatever the underlying store is. Hits older than the refresher's soft TTL are
+ * reloaded in the background with the caller's loader (stale-while-revalidate).
+ * <p>
+ * Load times are tracked per node: an entry filled by another node starts its clock when first seen here.
+ */
+@Slf4j
+public class SingleFlightCache implements Cache {
+    @Getter
+    private final Cache delegate;
+    private final SingleFlight<Object, Object> singleFlight;
+    private final CacheRefresher refresher;
+    private final ConcurrentMap<Object, Long> loadedAt = new ConcurrentHashMap<>();
+    private final Set<Object> refreshing = ConcurrentHashMap.newKeySet();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Counter refreshed;
+    private final Counter refreshFailed;
+    private final Counter refreshRejected;
+
+    public SingleFlightCache(Cache delegate, CacheRefresher refresher, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.refresher = refresher;
+        this.singleFlight = new SingleFlight<>(delegate.getName(), meterRegistry);
+        this.refreshed = refresher.counter(delegate.getName(), "success");
+        this.refreshFailed = refresher.counter(delegate.getName(), "failure");
+        this.refreshRejected = refresher.counter(delegate.getName(), "rejected");
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = delegate.get(key);
+
+        if (cached != null) {
+            refreshIfStale(key, valueLoader);
+            return (T) cached.get();
+        }
+
+        return (T) singleFlight.load(key, () -> {
+            ValueWrapper loadedMeanwhile = delegate.get(key);
+
+            if (loadedMeanwhile != null) {
+                return loadedMeanwhile.get();
+            }
+
+            return loadAndPut(key, valueLoader);
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        loadedAt.put(key, System.currentTimeMillis());
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        invalidations.incrementAndGet();
+        loadedAt.remove(key);
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        invalidations.incrementAndGet();
+        loadedAt.remove(key);
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        invalidations.incrementAndGet();
+        loadedAt.clear();
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        invalidations.incrementAndGet();
+        loadedAt.clear();
+        return delegate.invalidate();
+    }
+
+    private Object loadAndPut(Object key, Callable<?> valueLoader) {
+        long invalidationsBeforeLoad = invalidations.get();
+        Object value;
+
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+
+        // An eviction while loading means what we read may predate the write behind it, so don't store it
+        if (invalidations.get() == invalidationsBeforeLoad) {
+            put(key, value);
+        }
+
+        return value;
+    }
+
+    private void refreshIfStale(Object key, Callable<?> valueLoader) {
+        if (!refresher.isEnabled()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        Long loaded = loadedAt.putIfAbsent(key, now);
+
+        if (loaded == null || !refresher.isStale(loaded, now) || !refreshing.add(key)) {
+            return;
+        }
+
+        boolean submitted = refresher.submit(() -> {
+            try {
+                loadAndPut(key, valueLoader);
+                refreshed.increment();
+            } catch (RuntimeException e) {
+                refreshFailed.increment();
+                log.warn("Failed to refresh {} entry {}, keeping the cached value", getName(), key, e);
+            } finally {
+                refreshing.remove(key);
+            }
+        });
+
+        if (!submitted) {
+            refreshing.remove(key);
+            refreshRejected.increment();
+        }
+    }
+}
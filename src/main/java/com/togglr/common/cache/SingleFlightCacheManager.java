@@ -0,0 +1,46 @@
+package com.togglr.common.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class SingleFlightCacheManager implements CacheManager {
+    @Getter
+    private final CacheManager delegate;
+    private final CacheRefresher refresher;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, SingleFlightCache> caches = new ConcurrentHashMap<>();
+
+    public SingleFlightCacheManager(CacheManager delegate, CacheRefresher refresher, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.refresher = refresher;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        SingleFlightCache cache = caches.get(name);
+
+        if (cache != null) {
+            return cache;
+        }
+
+        Cache target = delegate.getCache(name);
+
+        if (target == null) {
+            return null;
+        }
+
+        return caches.computeIfAbsent(name, key -> new SingleFlightCache(target, refresher, meterRegistry));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+}
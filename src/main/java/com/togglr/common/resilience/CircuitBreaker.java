@@ -0,0 +1,128 @@
+package com.togglr.common.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * After {@code failureThreshold} consecutive failures, calls are refused with {@link CircuitBreakerOpenException}
+ * for {@code openDuration} ms. The first call after that is a trial: its outcome closes or reopens the breaker.
+ * Only exceptions matching {@code isFailure} count; anything else means the backend answered. An {@link Error}
+ * always counts, so a trial can never leave the breaker half-open.
+ */
+@Slf4j
+public class CircuitBreaker {
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    @Getter
+    private final String name;
+    private final int failureThreshold;
+    private final long openDuration;
+    private final Predicate<Throwable> isFailure;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long openedAt;
+    private final Counter successes;
+    private final Counter failures;
+    private final Counter rejections;
+
+    public CircuitBreaker(String name, int failureThreshold, long openDuration, Predicate<Throwable> isFailure, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.isFailure = isFailure;
+        this.successes = callCounter(meterRegistry, "success");
+        this.failures = callCounter(meterRegistry, "failure");
+        this.rejections = callCounter(meterRegistry, "rejected");
+        Gauge.builder("togglr.circuit.state", state, current -> current.get().ordinal())
+                .description("Circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    public <T> T call(Supplier<T> action) {
+        if (!tryAcquire()) {
+            rejections.increment();
+            throw new CircuitBreakerOpenException(name);
+        }
+
+        try {
+            T result = action.get();
+            onSuccess();
+            return result;
+        } catch (Throwable e) {
+            if (e instanceof Error || isFailure.test(e)) {
+                onFailure(e);
+            } else {
+                onSuccess();
+            }
+
+            throw e;
+        }
+    }
+
+    public void run(Runnable action) {
+        call(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public boolean isClosed() {
+        return state.get() == State.CLOSED;
+    }
+
+    private boolean tryAcquire() {
+        State current = state.get();
+
+        if (current == State.CLOSED) {
+            return true;
+        }
+
+        return current == State.OPEN
+                && System.currentTimeMillis() - openedAt >= openDuration
+                && state.compareAndSet(State.OPEN, State.HALF_OPEN);
+    }
+
+    private void onSuccess() {
+        successes.increment();
+        consecutiveFailures.set(0);
+
+        if (state.getAndSet(State.CLOSED) != State.CLOSED) {
+            log.info("{} recovered, circuit closed", name);
+        }
+    }
+
+    private void onFailure(Throwable e) {
+        failures.increment();
+
+        if (state.get() == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAt = System.currentTimeMillis();
+
+            if (state.getAndSet(State.OPEN) != State.OPEN) {
+                log.warn("{} is failing, circuit open for {} ms: {}", name, openDuration, e.getMessage());
+            }
+        }
+    }
+
+    private Counter callCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("togglr.circuit.calls")
+                .description("Calls through a circuit breaker")
+                .tag("name", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,7 @@
+package com.togglr.common.resilience;
+
+public class CircuitBreakerOpenException extends RuntimeException {
+    public CircuitBreakerOpenException(String name) {
+        super(String.format("%s is unavailable", name));
+    }
+}
@@ -0,0 +1,61 @@
+package com.togglr.common.resilience;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Circuit breakers for the backends the read path depends on, and whether what we serve may be stale.
+ * Responses are stale while the database breaker is not closed, since snapshots can no longer be
+ * reconciled, while snapshots restored from disk have not been checked against the database yet,
+ * or when the current request fell back to last-known data.
+ */
+@Getter
+@Component
+public class DegradedMode {
+    private static final String STALE_ATTRIBUTE = DegradedMode.class.getName() + ".stale";
+
+    private final CircuitBreaker database;
+    private final CircuitBreaker cache;
+    private volatile boolean snapshotsUnverified;
+
+    public DegradedMode(MeterRegistry meterRegistry,
+                        @Value("${togglr.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                        @Value("${togglr.circuit-breaker.open-duration:30000}") long openDuration) {
+        this.database = new CircuitBreaker("database", failureThreshold, openDuration,
+                e -> e instanceof DataAccessException || e instanceof TransactionException, meterRegistry);
+        this.cache = new CircuitBreaker("cache", failureThreshold, openDuration, e -> true, meterRegistry);
+    }
+
+    public boolean isDegraded() {
+        return !database.isClosed() || !cache.isClosed() || snapshotsUnverified;
+    }
+
+    public void markSnapshotsUnverified() {
+        snapshotsUnverified = true;
+    }
+
+    public void markSnapshotsVerified() {
+        snapshotsUnverified = false;
+    }
+
+    public void markStale() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+
+        if (attributes != null) {
+            attributes.setAttribute(STALE_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    public boolean isStale() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return !database.isClosed()
+                || snapshotsUnverified
+                || (attributes != null && attributes.getAttribute(STALE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null);
+    }
+}
@@ -0,0 +1,28 @@
+package com.togglr.common.resilience;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports DEGRADED while a backend circuit is not closed. The instance keeps serving last-known data,
+ * so this is not wired into the readiness or liveness groups.
+ */
+@Component
+@RequiredArgsConstructor
+public class DegradedModeHealthIndicator implements HealthIndicator {
+    public static final Status DEGRADED = new Status("DEGRADED", "Serving last-known data");
+
+    private final DegradedMode degradedMode;
+
+    @Override
+    public Health health() {
+        return Health.status(degradedMode.isDegraded() ? DEGRADED : Status.UP)
+                .withDetail("database", degradedMode.getDatabase().getState())
+                .withDetail("cache", degradedMode.getCache().getState())
+                .withDetail("snapshotsVerified", !degradedMode.isSnapshotsUnverified())
+                .build();
+    }
+}
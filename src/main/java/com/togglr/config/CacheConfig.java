@@ -4,23 +4,45 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.togglr.common.cache.CacheInvalidationBus;
+import com.togglr.common.cache.CacheRefresher;
+import com.togglr.common.cache.LayeredCacheManager;
+import com.togglr.common.cache.RedisCacheInvalidationBus;
+import com.togglr.common.cache.ResilientCache;
+import com.togglr.common.cache.ResilientCacheManager;
+import com.togglr.common.cache.SingleFlightCache;
+import com.togglr.common.cache.SingleFlightCacheManager;
+import com.togglr.common.resilience.DegradedMode;
+import com.togglr.feature.cache.FeatureCacheWeigher;
+import com.togglr.feature.cache.FeatureRedisSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.actuate.metrics.cache.CaffeineCacheMeterBinderProvider;
+import org.springframework.boot.actuate.metrics.cache.RedisCacheMeterBinderProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCache;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
-import java.util.concurrent.TimeUnit;
+import java.util.List;
 
 import static org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair.fromSerializer;
 
@@ -29,59 +51,161 @@ import static org.springframework.data.redis.serializer.RedisSerializationContex
 @RequiredArgsConstructor
 @Slf4j
 public class CacheConfig {
+    // Bumped whenever the stored value format changes, so nodes on different formats never read each other's entries
+    private static final String REDIS_KEY_PREFIX = "togglr:v2:";
+
     @Value("${spring.cache.redis.time-to-live:3600000}")
     private long redisTtl;
 
+    @Value("${togglr.cache.catalog.spec:maximumWeight=33554432,expireAfterWrite=1h}")
+    private String catalogSpec;
+
+    @Value("${togglr.cache.metrics.spec:maximumWeight=65536,expireAfterWrite=1h}")
+    private String metricsSpec;
+
+    @Value("${togglr.cache.near-cache.enabled:true}")
+    private boolean nearCacheEnabled;
+
+    @Value("${togglr.cache.near-cache.ttl:60000}")
+    private long nearCacheTtl;
+
+    @Value("${togglr.cache.near-cache.maximum-size:1000}")
+    private long nearCacheMaximumSize;
+
+    @Bean(destroyMethod = "shutdown")
+    public CacheRefresher cacheRefresher(MeterRegistry meterRegistry,
+                                         @Value("${togglr.cache.refresh.soft-ttl:300000}") long softTtl,
+                                         @Value("${togglr.cache.refresh.threads:2}") int threads,
+                                         @Value("${togglr.cache.refresh.queue-size:64}") int queueSize) {
+        return new CacheRefresher(softTtl, threads, queueSize, meterRegistry);
+    }
+
     @Bean
     @ConditionalOnProperty(name = "spring.cache.type", havingValue = "caffeine", matchIfMissing = true)
-    public CacheManager caffeineCacheManager() {
+    public CacheManager caffeineCacheManager(CacheRefresher cacheRefresher, MeterRegistry meterRegistry) {
         log.info("Initializing Caffeine cache manager (in-memory cache)");
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("features", "metrics");
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                .maximumSize(1000)
-                .expireAfterWrite(1, TimeUnit.HOURS)
-                .recordStats());
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCacheNames(List.of());
+        cacheManager.registerCustomCache("features", region(catalogSpec));
+        cacheManager.registerCustomCache("metrics", region(metricsSpec));
         log.info("Caffeine cache manager initialized successfully");
-        return cacheManager;
+        return new SingleFlightCacheManager(cacheManager, cacheRefresher, meterRegistry);
     }
 
     @Bean
     @ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis")
-    public CacheManager redisCacheManager(RedisConnectionFactory redisConnectionFactory) {
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory redisConnectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        return container;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.cache.type", havingValue = "caffeine", matchIfMissing = true)
+    public CacheInvalidationBus localCacheInvalidationBus() {
+        return CacheInvalidationBus.LOCAL;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis")
+    public CacheInvalidationBus redisCacheInvalidationBus(StringRedisTemplate redisTemplate,
+                                                          RedisMessageListenerContainer cacheInvalidationListenerContainer) {
+        return new RedisCacheInvalidationBus(redisTemplate, cacheInvalidationListenerContainer);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis")
+    public CacheManager redisCacheManager(RedisConnectionFactory redisConnectionFactory,
+                                          CacheInvalidationBus cacheInvalidationBus,
+                                          CacheRefresher cacheRefresher, DegradedMode degradedMode,
+                                          MeterRegistry meterRegistry) {
         log.info("Initializing Redis cache manager");
 
+        // A Redis outage must not keep the service from starting; cache calls go through a circuit
+        // breaker and fall through to the database until Redis is back.
         try {
             redisConnectionFactory.getConnection().ping();
             log.info("Redis connection successful");
+        } catch (Exception e) {
+            log.warn("Redis is unreachable, starting without it: {}", e.getMessage());
+        }
 
-            ObjectMapper objectMapper = new ObjectMapper();
-            objectMapper.registerModule(new JavaTimeModule());
-            objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-            objectMapper.activateDefaultTyping(
-                    objectMapper.getPolymorphicTypeValidator(),
-                    ObjectMapper.DefaultTyping.NON_FINAL,
-                    com.fasterxml.jackson.annotation.JsonTypeInfo.As.PROPERTY
-            );
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        objectMapper.activateDefaultTyping(
+                objectMapper.getPolymorphicTypeValidator(),
+                ObjectMapper.DefaultTyping.NON_FINAL,
+                com.fasterxml.jackson.annotation.JsonTypeInfo.As.PROPERTY
+        );
 
-            GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+        // Features and feature lists are written in a compact binary form; other values stay typed JSON
+        FeatureRedisSerializer serializer = new FeatureRedisSerializer(
+                new GenericJackson2JsonRedisSerializer(objectMapper), new ObjectMapper());
 
-            RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                    .entryTtl(Duration.ofMillis(redisTtl))
-                    .serializeKeysWith(fromSerializer(new StringRedisSerializer()))
-                    .serializeValuesWith(fromSerializer(serializer))
-                    .disableCachingNullValues();
+        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(Duration.ofMillis(redisTtl))
+                .prefixCacheNameWith(REDIS_KEY_PREFIX)
+                .serializeKeysWith(fromSerializer(new StringRedisSerializer()))
+                .serializeValuesWith(fromSerializer(serializer))
+                .disableCachingNullValues();
 
-            RedisCacheManager cacheManager = RedisCacheManager.builder(redisConnectionFactory)
-                    .cacheDefaults(config)
-                    .transactionAware()
-                    .build();
+        // Transaction awareness is applied outermost, so deferred writes still go through the breaker
+        CacheManager cacheManager = new ResilientCacheManager(RedisCacheManager.builder(redisConnectionFactory)
+                .cacheDefaults(config)
+                .build(), degradedMode.getCache());
 
+        if (nearCacheEnabled) {
+            // L2 write, L1 write and the invalidation message are deferred together; otherwise other
+            // nodes could refill L1 from Redis before it is updated.
+            cacheManager = new LayeredCacheManager(cacheManager, cacheInvalidationBus,
+                    Duration.ofMillis(nearCacheTtl), nearCacheMaximumSize, meterRegistry);
+            log.info("Redis cache manager initialized successfully with a {} ms near cache", nearCacheTtl);
+        } else {
             log.info("Redis cache manager initialized successfully");
+        }
 
-            return cacheManager;
-        } catch (Exception e) {
-            log.error("Failed to connect to Redis: {}", e.getMessage());
-            throw e;
+        return new SingleFlightCacheManager(new TransactionAwareCacheManagerProxy(cacheManager), cacheRefresher, meterRegistry);
+    }
+
+    /**
+     * Builds one cache region from a Caffeine spec; a {@code maximumWeight} bound is measured in estimated retained bytes.
+     */
+    private static com.github.benmanes.caffeine.cache.Cache<Object, Object> region(String spec) {
+        Caffeine<Object, Object> builder = Caffeine.from(spec).recordStats();
+
+        if (spec.contains("maximumWeight")) {
+            builder.weigher(new FeatureCacheWeigher());
         }
+
+        return builder.build();
+    }
+
+    @Bean
+    public CacheMeterBinderProvider<SingleFlightCache> singleFlightCacheMeterBinderProvider() {
+        CaffeineCacheMeterBinderProvider caffeineProvider = new CaffeineCacheMeterBinderProvider();
+        RedisCacheMeterBinderProvider redisProvider = new RedisCacheMeterBinderProvider();
+
+        return (cache, tags) -> {
+            Cache target = cache.getDelegate();
+
+            if (target instanceof TransactionAwareCacheDecorator decorator) {
+                target = decorator.getTargetCache();
+            }
+
+            if (target instanceof ResilientCache resilientCache) {
+                target = resilientCache.getDelegate();
+            }
+
+            if (target instanceof CaffeineCache caffeineCache) {
+                return caffeineProvider.getMeterBinder(caffeineCache, tags);
+            }
+
+            if (target instanceof RedisCache redisCache) {
+                return redisProvider.getMeterBinder(redisCache, tags);
+            }
+
+            return null;
+        };
     }
 }
@@ -0,0 +1,110 @@
+package com.togglr.feature.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.togglr.feature.snapshot.FeatureView;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Weighs cache entries by a rough estimate of the bytes they retain on a 64-bit JVM with compressed oops,
+ * so a region can be bounded in heap rather than in entry count. Estimates only need to be proportional:
+ * a catalog list of a thousand features must weigh about a thousand times one feature.
+ */
+public class FeatureCacheWeigher implements Weigher<Object, Object> {
+    private static final int OBJECT_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int FEATURE_VIEW = OBJECT_HEADER + 8 * REFERENCE;
+    private static final int BOXED = 16;
+    private static final int TIMESTAMP = 48;
+    private static final int DEFAULT_WEIGHT = 64;
+
+    @Override
+    public int weigh(Object key, Object value) {
+        long weight = estimate(key) + estimate(value);
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    static long estimate(Object value) {
+        if (value == null) {
+            return 0;
+        }
+
+        if (value instanceof FeatureView feature) {
+            return FEATURE_VIEW
+                    + BOXED
+                    + estimate(feature.name())
+                    + estimate(feature.namespace())
+                    + estimate(feature.environment())
+                    + estimate(feature.metadata())
+                    + estimate(feature.createdAt())
+                    + estimate(feature.updatedAt());
+        }
+
+        if (value instanceof String string) {
+            // String object plus its byte[], Latin-1 compacted
+            return 24 + OBJECT_HEADER + string.length();
+        }
+
+        if (value instanceof LocalDateTime) {
+            return TIMESTAMP;
+        }
+
+        if (value instanceof JsonNode node) {
+            return estimateJson(node);
+        }
+
+        if (value instanceof Collection<?> collection) {
+            long weight = OBJECT_HEADER + 16 + (long) REFERENCE * collection.size();
+
+            for (Object element : collection) {
+                weight += estimate(element);
+            }
+
+            return weight;
+        }
+
+        return DEFAULT_WEIGHT;
+    }
+
+    private static long estimateJson(JsonNode node) {
+        if (node instanceof POJONode pojo && pojo.getPojo() instanceof RawValue raw) {
+            // Read-only metadata of a FeatureView: node and RawValue around the serialized string
+            return 2 * (OBJECT_HEADER + REFERENCE) + estimate(raw.rawValue());
+        }
+
+        if (node.isObject()) {
+            // ObjectNode wraps a LinkedHashMap: map itself plus one entry per field
+            long weight = OBJECT_HEADER + REFERENCE + 64;
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                weight += 40 + estimate(field.getKey()) + estimateJson(field.getValue());
+            }
+
+            return weight;
+        }
+
+        if (node.isArray()) {
+            long weight = OBJECT_HEADER + REFERENCE + 40 + (long) REFERENCE * node.size();
+
+            for (JsonNode element : node) {
+                weight += estimateJson(element);
+            }
+
+            return weight;
+        }
+
+        if (node.isTextual()) {
+            return OBJECT_HEADER + REFERENCE + estimate(node.textValue());
+        }
+
+        return OBJECT_HEADER + 8;
+    }
+}
@@ -0,0 +1,108 @@
+package com.togglr.feature.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.togglr.feature.snapshot.FeatureView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding for cached features and feature lists; every other value goes to {@code fallback}.
+ * Payloads start with {@link #MAGIC}, which JSON never does, then {@link #SCHEMA_VERSION} and the value kind.
+ * A payload written by a different schema version decodes to {@code null}, which the cache treats as a miss,
+ * so nodes on different versions can share Redis during a rolling upgrade.
+ */
+@Slf4j
+public class FeatureRedisSerializer implements RedisSerializer<Object> {
+    static final byte MAGIC = (byte) 0xB7;
+    static final byte SCHEMA_VERSION = 2;
+
+    private static final byte KIND_FEATURE = 1;
+    private static final byte KIND_FEATURE_LIST = 2;
+
+    private final RedisSerializer<Object> fallback;
+    private final FeatureViewCodec codec;
+
+    public FeatureRedisSerializer(RedisSerializer<Object> fallback, ObjectMapper objectMapper) {
+        this.fallback = fallback;
+        this.codec = new FeatureViewCodec(objectMapper);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value instanceof FeatureView feature) {
+            return encode(KIND_FEATURE, List.of(feature));
+        }
+
+        if (value instanceof List<?> list && list.stream().allMatch(FeatureView.class::isInstance)) {
+            return encode(KIND_FEATURE_LIST, list);
+        }
+
+        return fallback.serialize(value);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0 || bytes[0] != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+
+        if (bytes.length < 3 || bytes[1] != SCHEMA_VERSION) {
+            log.debug("Ignoring cached feature payload with schema version {}", bytes.length > 1 ? bytes[1] : null);
+            return null;
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(bytes, 3, bytes.length - 3);
+
+        try {
+            if (bytes[2] == KIND_FEATURE) {
+                return codec.read(in);
+            }
+
+            if (bytes[2] == KIND_FEATURE_LIST) {
+                int size = in.getInt();
+                List<FeatureView> features = new ArrayList<>(size);
+
+                for (int i = 0; i < size; i++) {
+                    features.add(codec.read(in));
+                }
+
+                return features;
+            }
+
+            throw new SerializationException("Unknown cached feature payload kind " + bytes[2]);
+        } catch (IOException | BufferUnderflowException e) {
+            throw new SerializationException("Could not decode cached feature payload", e);
+        }
+    }
+
+    private byte[] encode(byte kind, List<?> features) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * features.size() + 8);
+
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeByte(MAGIC);
+            out.writeByte(SCHEMA_VERSION);
+            out.writeByte(kind);
+
+            if (kind == KIND_FEATURE_LIST) {
+                out.writeInt(features.size());
+            }
+
+            for (Object feature : features) {
+                codec.write(out, (FeatureView) feature);
+            }
+        } catch (IOException e) {
+            throw new SerializationException("Could not encode cached feature payload", e);
+        }
+
+        return buffer.toByteArray();
+    }
+}
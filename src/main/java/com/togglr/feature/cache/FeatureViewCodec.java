@@ -0,0 +1,108 @@
+package com.togglr.feature.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.togglr.feature.snapshot.FeatureView;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Binary layout of a {@link FeatureView}, shared by the Redis serializer and the on-disk snapshot store.
+ * Any change to it must bump the version of both formats. Metadata is stored as plain JSON bytes.
+ */
+public class FeatureViewCodec {
+    private final ObjectMapper objectMapper;
+
+    public FeatureViewCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public void write(DataOutput out, FeatureView feature) throws IOException {
+        writeLong(out, feature.id());
+        writeString(out, feature.name());
+        writeString(out, feature.namespace());
+        writeString(out, feature.environment());
+        out.writeByte(feature.enabled() == null ? -1 : feature.enabled() ? 1 : 0);
+        writeBytes(out, feature.metadata() != null ? objectMapper.writeValueAsBytes(feature.metadata()) : null);
+        writeTimestamp(out, feature.createdAt());
+        writeTimestamp(out, feature.updatedAt());
+    }
+
+    public FeatureView read(ByteBuffer in) throws IOException {
+        Long id = readLong(in);
+        String name = readString(in);
+        String namespace = readString(in);
+        String environment = readString(in);
+        byte enabled = in.get();
+        byte[] metadata = readBytes(in);
+
+        return new FeatureView(
+                id,
+                name,
+                namespace,
+                environment,
+                enabled < 0 ? null : enabled == 1,
+                metadata != null ? FeatureView.readOnlyMetadata(new String(metadata, StandardCharsets.UTF_8)) : null,
+                readTimestamp(in),
+                readTimestamp(in)
+        );
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        writeBytes(out, value != null ? value.getBytes(StandardCharsets.UTF_8) : null);
+    }
+
+    public static String readString(ByteBuffer in) {
+        byte[] bytes = readBytes(in);
+        return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+    }
+
+    private static void writeLong(DataOutput out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(ByteBuffer in) {
+        return in.get() != 0 ? in.getLong() : null;
+    }
+
+    private static void writeBytes(DataOutput out, byte[] value) throws IOException {
+        out.writeInt(value != null ? value.length : -1);
+
+        if (value != null) {
+            out.write(value);
+        }
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        int length = in.getInt();
+
+        if (length < 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private static void writeTimestamp(DataOutput out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readTimestamp(ByteBuffer in) {
+        return in.get() != 0 ? LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC) : null;
+    }
+}
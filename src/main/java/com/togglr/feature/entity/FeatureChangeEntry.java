@@ -0,0 +1,44 @@
+package com.togglr.feature.entity;
+
+import com.togglr.common.entity.BaseEntity;
+import com.togglr.feature.snapshot.FeatureChange;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * One committed feature write. The generated id is the change sequence shared by every node: snapshot
+ * versions and the cursors handed to clients are ids of this table, so they survive restarts.
+ * Namespace and environment are kept as plain ids, without foreign keys, so deleting them is not blocked.
+ */
+@Entity
+@Table(name = "feature_changes", indexes = {
+        @Index(name = "idx_feature_changes_pair", columnList = "namespace_id, environment_id, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(callSuper = true)
+public class FeatureChangeEntry extends BaseEntity {
+    @Column(name = "namespace_id", nullable = false)
+    private Long namespaceId;
+
+    @Column(name = "environment_id", nullable = false)
+    private Long environmentId;
+
+    @Column(name = "feature_name", nullable = false)
+    private String featureName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private FeatureChange.Type type;
+}
@@ -0,0 +1,6 @@
+package com.togglr.feature.event;
+
+import com.togglr.feature.entity.Environment;
+
+public record EnvironmentDeletedEvent(Environment environment) {
+}
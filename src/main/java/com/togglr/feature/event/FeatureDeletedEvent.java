@@ -0,0 +1,6 @@
+package com.togglr.feature.event;
+
+import com.togglr.feature.entity.Feature;
+
+public record FeatureDeletedEvent(Feature feature) {
+}
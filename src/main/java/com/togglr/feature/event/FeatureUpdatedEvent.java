@@ -0,0 +1,9 @@
+package com.togglr.feature.event;
+
+import com.togglr.feature.entity.Feature;
+
+/**
+ * Published by the update itself, with {@code before} copied from the entity it loaded before changing it.
+ */
+public record FeatureUpdatedEvent(Feature before, Feature after) {
+}
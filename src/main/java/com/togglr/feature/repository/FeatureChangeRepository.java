@@ -0,0 +1,62 @@
+package com.togglr.feature.repository;
+
+import com.togglr.feature.entity.FeatureChangeEntry;
+import com.togglr.feature.snapshot.SnapshotVersion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface FeatureChangeRepository extends JpaRepository<FeatureChangeEntry, Long> {
+    /**
+     * Serializes writers of one pair until their transaction ends, so the ids of that pair commit in order
+     * and a reader that has seen an id has also seen every smaller one. The lock key is a 64-bit hash of both
+     * ids, which keeps ids of any size apart; two pairs that collide merely wait for each other.
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtextextended(" +
+            "CAST(:namespaceId AS text) || '/' || CAST(:environmentId AS text), 0))", nativeQuery = true)
+    int lockPair(@Param("namespaceId") Long namespaceId, @Param("environmentId") Long environmentId);
+
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM FeatureChangeEntry c WHERE c.namespaceId = :namespaceId AND c.environmentId = :environmentId")
+    long findLatestId(@Param("namespaceId") Long namespaceId, @Param("environmentId") Long environmentId);
+
+    /**
+     * Sum of the latest id of every pair. Ids of one pair commit in order, so every commit raises the sum,
+     * which therefore identifies a committed state of the whole log even when pairs commit out of id order.
+     */
+    @Query(value = "SELECT CAST(COALESCE(SUM(latest), 0) AS BIGINT) FROM " +
+            "(SELECT MAX(id) AS latest FROM feature_changes GROUP BY namespace_id, environment_id) pairs", nativeQuery = true)
+    long sumLatestIds();
+
+    @Query("SELECT new com.togglr.feature.snapshot.SnapshotVersion(n.name, e.name, MAX(c.id)) FROM FeatureChangeEntry c " +
+            "JOIN Namespace n ON n.id = c.namespaceId JOIN Environment e ON e.id = c.environmentId GROUP BY n.name, e.name")
+    List<SnapshotVersion> findLatestVersions();
+
+    @Query("SELECT c FROM FeatureChangeEntry c WHERE c.namespaceId = :namespaceId AND c.environmentId = :environmentId " +
+            "AND c.id > :sinceId AND c.id <= :untilId ORDER BY c.id")
+    List<FeatureChangeEntry> findChanges(@Param("namespaceId") Long namespaceId, @Param("environmentId") Long environmentId,
+                                         @Param("sinceId") long sinceId, @Param("untilId") long untilId, Pageable pageable);
+
+    @Query("SELECT MIN(c.id) FROM FeatureChangeEntry c WHERE c.namespaceId = :namespaceId AND c.environmentId = :environmentId")
+    Long findOldestId(@Param("namespaceId") Long namespaceId, @Param("environmentId") Long environmentId);
+
+    /**
+     * Deletes every change below the newest one recorded before {@code cutoff}, except the newest change of
+     * each pair, which carries the pair's version. Deleting by id rather than by timestamp means every change
+     * of a pair above its oldest remaining one is still there, so that id tells how far back the pair's log reaches.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM FeatureChangeEntry c WHERE c.id < " +
+            "(SELECT MAX(o.id) FROM FeatureChangeEntry o WHERE o.createdAt < :cutoff) " +
+            "AND c.id < (SELECT MAX(l.id) FROM FeatureChangeEntry l " +
+            "WHERE l.namespaceId = c.namespaceId AND l.environmentId = c.environmentId)")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -3,6 +3,7 @@ package com.togglr.feature.repository;
 import com.togglr.feature.entity.Environment;
 import com.togglr.feature.entity.Feature;
 import com.togglr.feature.entity.Namespace;
+import com.togglr.feature.snapshot.FeatureView;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -20,12 +21,24 @@ public interface FeatureRepository extends JpaRepository<Feature, Long> {
 
     List<Feature> findByNamespaceAndEnvironment(Namespace namespace, Environment environment);
 
+    @Query("SELECT new com.togglr.feature.snapshot.FeatureView(f.id, f.name, n.name, e.name, f.enabled, f.metadata, f.createdAt, f.updatedAt) " +
+            "FROM Feature f JOIN f.namespace n JOIN f.environment e WHERE n.id = :namespaceId AND e.id = :environmentId")
+    List<FeatureView> findViewsByNamespaceIdAndEnvironmentId(@Param("namespaceId") Long namespaceId, @Param("environmentId") Long environmentId);
+
     @Query("SELECT f FROM Feature f WHERE f.namespace = :namespace AND f.environment = :environment AND f.enabled = true")
     List<Feature> findEnabledFeatures(@Param("namespace") Namespace namespace, @Param("environment") Environment environment);
 
     @Query("SELECT f FROM Feature f JOIN FETCH f.namespace JOIN FETCH f.environment")
     List<Feature> findAllWithRelations();
 
+    @Query("SELECT new com.togglr.feature.snapshot.FeatureView(f.id, f.name, n.name, e.name, f.enabled, f.metadata, f.createdAt, f.updatedAt) " +
+            "FROM Feature f JOIN f.namespace n JOIN f.environment e")
+    List<FeatureView> findAllViews();
+
+    List<Feature> findByNamespace(Namespace namespace);
+
+    List<Feature> findByEnvironment(Environment environment);
+
     long countByEnvironment(Environment environment);
 
     long countByEnvironmentAndEnabled(Environment environment, boolean enabled);
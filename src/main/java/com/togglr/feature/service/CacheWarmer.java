@@ -0,0 +1,116 @@
+package com.togglr.feature.service;
+
+import com.togglr.common.resilience.DegradedMode;
+import com.togglr.feature.snapshot.FeatureSnapshotRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fills the name indexes, the feature snapshots and the catalog cache at startup. Application runners complete
+ * before Spring Boot reports the readiness state ACCEPTING_TRAFFIC, so a new instance only gets traffic once
+ * it is warm, or once the timeout has passed; a failed or slow warm-up never keeps the instance out of service.
+ */
+@Slf4j
+@Component
+public class CacheWarmer implements ApplicationRunner {
+    private final FeatureService featureService;
+    private final NamespaceService namespaceService;
+    private final EnvironmentService environmentService;
+    private final FeatureSnapshotRegistry snapshotRegistry;
+    private final DegradedMode degradedMode;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long timeout;
+
+    public CacheWarmer(FeatureService featureService,
+                       NamespaceService namespaceService,
+                       EnvironmentService environmentService,
+                       FeatureSnapshotRegistry snapshotRegistry,
+                       DegradedMode degradedMode,
+                       MeterRegistry meterRegistry,
+                       @Value("${togglr.warmup.enabled:true}") boolean enabled,
+                       @Value("${togglr.warmup.timeout:30000}") long timeout) {
+        this.featureService = featureService;
+        this.namespaceService = namespaceService;
+        this.environmentService = environmentService;
+        this.snapshotRegistry = snapshotRegistry;
+        this.degradedMode = degradedMode;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "cache-warmup"));
+        CompletableFuture<Integer> warmUp = CompletableFuture.supplyAsync(this::warmUp, executor);
+        long start = System.nanoTime();
+        String outcome = "success";
+
+        try {
+            int snapshots = warmUp.get(timeout, TimeUnit.MILLISECONDS);
+            log.info("Cache warm-up finished in {} ms, {} snapshots loaded", elapsedMillis(start), snapshots);
+        } catch (TimeoutException e) {
+            outcome = "timeout";
+            warmUp.cancel(true);
+            log.warn("Cache warm-up did not finish within {} ms, accepting traffic with a partially warm cache", timeout);
+        } catch (ExecutionException e) {
+            outcome = "failure";
+            log.warn("Cache warm-up failed after {} ms, accepting traffic with a cold cache", elapsedMillis(start), e.getCause());
+        } catch (InterruptedException e) {
+            outcome = "failure";
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+            Timer.builder("togglr.cache.warmup")
+                    .description("Time spent warming caches at startup")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private int warmUp() {
+        namespaceService.reloadIndex();
+        environmentService.reloadIndex();
+
+        // Snapshots restored from disk are brought up to the versions in the change log
+        FeatureSnapshotRegistry.PreloadResult result = snapshotRegistry.preload(featureService::loadSnapshots);
+        // The version first, so the catalog can only be newer than it; getAllFeatures goes through
+        // the cache proxy, so this fills the catalog cache
+        featureService.getCatalogVersion();
+        featureService.getAllFeatures();
+
+        if (!result.complete()) {
+            log.info("A write landed during the cache warm-up, snapshots stay unverified until the next refresh");
+            return result.loaded();
+        }
+
+        // A restored pair missing from the load has no features left, or no longer exists
+        snapshotRegistry.keys().stream()
+                .filter(key -> !result.keys().contains(key))
+                .forEach(snapshotRegistry::evict);
+        degradedMode.markSnapshotsVerified();
+        return result.loaded();
+    }
+
+    private static long elapsedMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,92 @@
+package com.togglr.feature.service;
+
+import com.togglr.common.resilience.DegradedMode;
+import com.togglr.feature.snapshot.FeatureSnapshotRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.OptionalLong;
+
+/**
+ * The cached views derived from the whole catalog: the feature list and the dashboard metrics, together with
+ * the catalog version that labels them. Anything that changes what they show, a feature write or a namespace
+ * or environment rename, evicts both and then moves the version, so a version is never paired with content
+ * older than itself.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogCache {
+    static final String ALL_FEATURES_KEY = "all_features";
+
+    private final CacheManager cacheManager;
+    private final FeatureChangeLog changeLog;
+    private final FeatureSnapshotRegistry snapshotRegistry;
+    private final DegradedMode degradedMode;
+
+    public void evict() {
+        // evictIfPresent is immediate even on transaction-aware caches, which matters inside afterCommit
+        Cache features = cacheManager.getCache("features");
+        Cache metrics = cacheManager.getCache("metrics");
+
+        if (features != null) {
+            features.evictIfPresent(ALL_FEATURES_KEY);
+        }
+
+        if (metrics != null) {
+            metrics.evictIfPresent("dashboard");
+        }
+    }
+
+    /**
+     * Called after a change to the catalog committed on this node.
+     */
+    public void changed() {
+        evict();
+        advance();
+    }
+
+    /**
+     * Moves the version up to the change log without evicting, for changes whose eviction has already
+     * reached this node, e.g. a write on another node announced after its eviction message.
+     */
+    public void advance() {
+        try {
+            loadVersion();
+        } catch (RuntimeException e) {
+            // The periodic refresh moves the version once the log can be read again
+            log.warn("Failed to read the catalog version: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Picks up changes this node was not told about; evicts only when the version moved.
+     */
+    public void refresh() {
+        long version = degradedMode.getDatabase().call(changeLog::catalogVersion);
+        OptionalLong known = snapshotRegistry.catalogVersion();
+
+        if (known.isEmpty() || version > known.getAsLong()) {
+            log.debug("Feature catalog moved to version {}", version);
+            evict();
+            snapshotRegistry.catalogAdvanced(version);
+        }
+    }
+
+    /**
+     * The catalog version, read from the change log the first time.
+     */
+    public long version() {
+        OptionalLong known = snapshotRegistry.catalogVersion();
+        return known.isPresent() ? known.getAsLong() : loadVersion();
+    }
+
+    private long loadVersion() {
+        long version = degradedMode.getDatabase().call(changeLog::catalogVersion);
+        snapshotRegistry.catalogAdvanced(version);
+        return version;
+    }
+}
@@ -1,19 +1,31 @@
 package com.togglr.feature.service;
 
 
+import com.togglr.common.transaction.TransactionCallbacks;
 import com.togglr.feature.entity.Environment;
+import com.togglr.feature.event.EnvironmentDeletedEvent;
 import com.togglr.feature.repository.EnvironmentRepository;
 import com.togglr.feature.repository.FeatureRepository;
+import com.togglr.feature.snapshot.FeatureSnapshotRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class EnvironmentService {
     private final EnvironmentRepository environmentRepository;
     private final FeatureRepository featureRepository;
+    private final FeatureSnapshotRegistry snapshotRegistry;
+    private final FeatureChangeLog changeLog;
+    private final CatalogCache catalogCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NameIndex<Environment> index = new NameIndex<>(Environment::getName);
 
     public List<Environment> findAll() {
         return environmentRepository.findAll();
@@ -25,19 +37,37 @@ public class EnvironmentService {
     }
 
     public Environment findByName(String name) {
-        return environmentRepository.findByName(name)
+        return findIndexed(name)
                 .orElseThrow(() -> new com.togglr.rest.exception.EntityNotFoundException("Environment", name));
     }
 
     public Environment create(String name) {
-        return environmentRepository.save(Environment.builder().name(name).build());
+        Environment saved = environmentRepository.save(Environment.builder().name(name).build());
+        TransactionCallbacks.afterCommit(() -> {
+            index.put(saved);
+            snapshotRegistry.environmentCreated(saved.getName());
+        });
+
+        return saved;
     }
 
+    @Transactional
     public Environment update(Long id, String name) {
         Environment environment = findById(id);
+        String previousName = environment.getName();
         environment.setName(name);
 
-        return environmentRepository.save(environment);
+        Environment saved = environmentRepository.save(environment);
+        // Every feature of the environment is now listed under the new name
+        changeLog.recordRenamed(featureRepository.findByEnvironment(saved));
+        TransactionCallbacks.afterCommit(() -> {
+            index.remove(previousName);
+            index.put(saved);
+            catalogCache.changed();
+            snapshotRegistry.environmentRenamed(previousName, saved.getName());
+        });
+
+        return saved;
     }
 
     public void delete(Long id) {
@@ -49,13 +79,27 @@ public class EnvironmentService {
         }
 
         environmentRepository.deleteById(id);
+        TransactionCallbacks.afterCommit(() -> index.remove(environment.getName()));
+        eventPublisher.publishEvent(new EnvironmentDeletedEvent(environment));
     }
 
     public Environment findOrCreate(String name) {
+        // Writes go to the database so a environment deleted on another node is never reused from a stale index
         return environmentRepository.findByName(name)
+                .map(index::put)
                 .orElseGet(() -> create(name));
     }
 
+    @Scheduled(fixedDelayString = "${togglr.snapshot.refresh-interval:60000}")
+    public void reloadIndex() {
+        index.reload(environmentRepository.findAll());
+    }
+
+    private Optional<Environment> findIndexed(String name) {
+        return index.find(name)
+                .or(() -> environmentRepository.findByName(name).map(index::put));
+    }
+
     public long countActiveFeaturesByEnvironment(Environment environment) {
         return featureRepository.countByEnvironmentAndEnabled(environment, true);
     }
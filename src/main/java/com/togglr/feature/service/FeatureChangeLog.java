@@ -0,0 +1,119 @@
+package com.togglr.feature.service;
+
+import com.togglr.feature.entity.Environment;
+import com.togglr.feature.entity.Feature;
+import com.togglr.feature.entity.FeatureChangeEntry;
+import com.togglr.feature.entity.Namespace;
+import com.togglr.feature.repository.FeatureChangeRepository;
+import com.togglr.feature.snapshot.FeatureChange;
+import com.togglr.feature.snapshot.SnapshotKey;
+import com.togglr.feature.snapshot.SnapshotVersion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * The shared sequence of feature writes. Every write appends an entry in its own transaction, and the entry
+ * id becomes the version of the pair's snapshot, so versions mean the same on every node and after restarts.
+ * Entries are kept for a retention period; a client whose cursor is older gets a full response. The newest
+ * entry of each pair outlives the retention, so a pair's version never falls back to one handed out before.
+ */
+@Slf4j
+@Component
+public class FeatureChangeLog {
+    static final int MAX_CHANGES = 1000;
+
+    private final FeatureChangeRepository changeRepository;
+    private final long retention;
+
+    public FeatureChangeLog(FeatureChangeRepository changeRepository,
+                            @Value("${togglr.snapshot.changes.retention:604800000}") long retention) {
+        this.changeRepository = changeRepository;
+        this.retention = retention;
+    }
+
+    /**
+     * Appends a change to the pair of {@code feature}; must run in the transaction making the change.
+     */
+    public void record(Feature feature, FeatureChange.Type type) {
+        Long namespaceId = feature.getNamespace().getId();
+        Long environmentId = feature.getEnvironment().getId();
+
+        changeRepository.lockPair(namespaceId, environmentId);
+        changeRepository.save(FeatureChangeEntry.builder()
+                .namespaceId(namespaceId)
+                .environmentId(environmentId)
+                .featureName(feature.getName())
+                .type(type)
+                .build());
+    }
+
+    /**
+     * Records a rename as a change to every feature listed under the renamed namespace or environment.
+     * Pairs are locked in id order, so two renames cannot deadlock on each other.
+     */
+    public void recordRenamed(List<Feature> features) {
+        features.stream()
+                .sorted(Comparator.comparing((Feature feature) -> feature.getNamespace().getId())
+                        .thenComparing(feature -> feature.getEnvironment().getId()))
+                .forEach(feature -> record(feature, FeatureChange.Type.UPSERT));
+    }
+
+    public long latestVersion(Namespace namespace, Environment environment) {
+        return changeRepository.findLatestId(namespace.getId(), environment.getId());
+    }
+
+    /**
+     * Version of the whole catalog; it moves with every committed change of any pair.
+     */
+    public long catalogVersion() {
+        return changeRepository.sumLatestIds();
+    }
+
+    public Map<SnapshotKey, Long> latestVersions() {
+        return changeRepository.findLatestVersions().stream()
+                .collect(Collectors.toMap(SnapshotVersion::key, SnapshotVersion::version));
+    }
+
+    /**
+     * Entries of a pair after {@code sinceVersion} up to {@code untilVersion}, in order, or empty when
+     * the log no longer reaches back that far or there are too many to be worth replaying.
+     */
+    public Optional<List<FeatureChangeEntry>> entriesBetween(Namespace namespace, Environment environment,
+                                                             long sinceVersion, long untilVersion) {
+        // Pruning only removes entries below the oldest one a pair still has
+        Long oldest = changeRepository.findOldestId(namespace.getId(), environment.getId());
+
+        if (sinceVersion > untilVersion || oldest != null && sinceVersion < oldest - 1) {
+            return Optional.empty();
+        }
+
+        List<FeatureChangeEntry> entries = changeRepository.findChanges(namespace.getId(), environment.getId(),
+                sinceVersion, untilVersion, PageRequest.of(0, MAX_CHANGES + 1));
+
+        return entries.size() > MAX_CHANGES ? Optional.empty() : Optional.of(entries);
+    }
+
+    @Scheduled(fixedDelayString = "${togglr.snapshot.changes.prune-interval:3600000}")
+    public void prune() {
+        try {
+            int deleted = changeRepository.deleteOlderThan(LocalDateTime.now().minus(retention, ChronoUnit.MILLIS));
+
+            if (deleted > 0) {
+                log.debug("Pruned {} feature change entries", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to prune the feature change log: {}", e.getMessage());
+        }
+    }
+}
@@ -1,53 +1,156 @@
 package com.togglr.feature.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.togglr.common.cache.CacheInvalidationBus;
+import com.togglr.common.resilience.CircuitBreakerOpenException;
+import com.togglr.common.resilience.DegradedMode;
+import com.togglr.common.transaction.TransactionCallbacks;
 import com.togglr.feature.entity.Environment;
 import com.togglr.feature.entity.Feature;
+import com.togglr.feature.entity.FeatureChangeEntry;
 import com.togglr.feature.entity.Namespace;
+import com.togglr.feature.event.FeatureDeletedEvent;
+import com.togglr.feature.event.FeatureUpdatedEvent;
 import com.togglr.feature.repository.FeatureRepository;
+import com.togglr.feature.snapshot.FeatureChange;
+import com.togglr.feature.snapshot.FeatureSnapshot;
+import com.togglr.feature.snapshot.FeatureSnapshotRegistry;
+import com.togglr.feature.snapshot.FeatureView;
+import com.togglr.feature.snapshot.SnapshotKey;
+import com.togglr.feature.snapshot.SnapshotUpdate;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.CacheEvict;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
-@Transactional
 @RequiredArgsConstructor
 public class FeatureService {
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final String SNAPSHOT_REGION = "snapshots";
+
     private final FeatureRepository featureRepository;
+    private final FeatureChangeLog changeLog;
     private final NamespaceService namespaceService;
     private final EnvironmentService environmentService;
+    private final FeatureSnapshotRegistry snapshotRegistry;
+    private final CatalogCache catalogCache;
+    private final DegradedMode degradedMode;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheInvalidationBus invalidationBus;
+
+    @PostConstruct
+    void subscribeToRemoteWrites() {
+        // Another node committed a write to this pair; bring the snapshot up to the change log right away
+        // instead of at the next refresh. The catalog cache has been evicted through its own message,
+        // so only the catalog version is left to move.
+        invalidationBus.subscribe(SNAPSHOT_REGION, key -> {
+            if (key != null) {
+                SnapshotKey.decode(key).ifPresent(this::synchronize);
+                catalogCache.advance();
+            }
+        });
+    }
 
-    @Cacheable(value = "features", key = "#name + '_' + #namespaceName + '_' + #environmentName")
-    public Feature getFeature(String name, String namespaceName, String environmentName) {
-        Namespace namespace = namespaceService.findByName(namespaceName);
-        Environment environment = environmentService.findByName(environmentName);
+    public FeatureView getFeature(String name, String namespaceName, String environmentName) {
+        return getFeature(name, getSnapshot(namespaceName, environmentName));
+    }
 
-        return featureRepository.findByNameAndNamespaceAndEnvironment(name, namespace, environment)
+    public FeatureView getFeature(String name, FeatureSnapshot snapshot) {
+        return snapshot.find(name)
                 .orElseThrow(() -> new com.togglr.rest.exception.EntityNotFoundException(
-                        String.format("Feature '%s' not found in namespace '%s' and environment '%s'", name, namespaceName, environmentName)));
+                        String.format("Feature '%s' not found in namespace '%s' and environment '%s'", name, snapshot.getNamespace(), snapshot.getEnvironment())));
     }
 
-    @Cacheable(value = "features", key = "'enabled_' + #namespaceName + '_' + #environmentName")
-    public List<Feature> getEnabledFeatures(String namespaceName, String environmentName) {
-        Namespace namespace = namespaceService.findByName(namespaceName);
-        Environment environment = environmentService.findByName(environmentName);
+    public Map<String, FeatureView> getFeatures(Collection<String> names, String namespaceName, String environmentName) {
+        if (names.size() > MAX_BATCH_SIZE) {
+            throw new com.togglr.rest.exception.BadRequestException("At most " + MAX_BATCH_SIZE + " features can be requested at once");
+        }
+
+        FeatureSnapshot snapshot = getSnapshot(namespaceName, environmentName);
+        Map<String, FeatureView> found = new LinkedHashMap<>();
+
+        for (String name : names) {
+            snapshot.find(name).ifPresent(feature -> found.put(name, feature));
+        }
+
+        return found;
+    }
 
-        return featureRepository.findEnabledFeatures(namespace, environment);
+    public List<FeatureView> getEnabledFeatures(String namespaceName, String environmentName) {
+        return getSnapshot(namespaceName, environmentName).getEnabledFeatures();
     }
 
-    @Cacheable(value = "features", key = "'namespace_' + #namespaceName + '_' + #environmentName")
-    public List<Feature> getFeaturesByNamespaceAndEnvironment(String namespaceName, String environmentName) {
-        Namespace namespace = namespaceService.findByName(namespaceName);
-        Environment environment = environmentService.findByName(environmentName);
+    public List<FeatureView> getFeaturesByNamespaceAndEnvironment(String namespaceName, String environmentName) {
+        return getSnapshot(namespaceName, environmentName).getFeatures();
+    }
 
-        return featureRepository.findByNamespaceAndEnvironment(namespace, environment);
+    public FeatureSnapshot getSnapshot(String namespaceName, String environmentName) {
+        return snapshotRegistry.get(namespaceName, environmentName, () -> {
+            ReadOrigin.markDatabase();
+            return loadSnapshot(namespaceName, environmentName);
+        });
     }
 
-    @CacheEvict(value = {"features", "metrics"}, allEntries = true)
+    /**
+     * Changes made to the snapshot's pair after {@code sinceVersion}. Falls back to the shared change log when
+     * the cursor predates what this node holds in memory, e.g. because it was issued by another node or
+     * before a restart; empty when neither reaches back that far.
+     */
+    public Optional<List<FeatureChange>> getChangesSince(FeatureSnapshot snapshot, long sinceVersion) {
+        Optional<List<FeatureChange>> recent = snapshot.changesSince(sinceVersion);
+
+        if (recent.isPresent() || sinceVersion > snapshot.getVersion()) {
+            return recent;
+        }
+
+        try {
+            return degradedMode.getDatabase().call(() -> {
+                Namespace namespace = namespaceService.findByName(snapshot.getNamespace());
+                Environment environment = environmentService.findByName(snapshot.getEnvironment());
+
+                return changeLog.entriesBetween(namespace, environment, sinceVersion, snapshot.getVersion())
+                        .map(entries -> toChanges(entries, snapshot.getFeatures()));
+            });
+        } catch (RuntimeException e) {
+            log.debug("Cannot read feature changes since {}: {}", sinceVersion, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Every pair with at least one feature, each at its version in the change log.
+     */
+    public Map<SnapshotKey, FeatureSnapshot> loadSnapshots() {
+        return degradedMode.getDatabase().call(() -> {
+            // Versions are read before the features, so a snapshot can only be newer than its version
+            Map<SnapshotKey, Long> versions = changeLog.latestVersions();
+            Map<SnapshotKey, List<FeatureView>> featuresByKey = featureRepository.findAllViews().stream()
+                    .collect(Collectors.groupingBy(
+                            feature -> new SnapshotKey(feature.namespace(), feature.environment()),
+                            LinkedHashMap::new,
+                            Collectors.toList()));
+            Map<SnapshotKey, FeatureSnapshot> snapshots = new LinkedHashMap<>();
+
+            featuresByKey.forEach((key, features) -> snapshots.put(key,
+                    FeatureSnapshot.of(key.namespace(), key.environment(), versions.getOrDefault(key, 0L), features)));
+            return snapshots;
+        });
+    }
+
+    @Transactional
     public Feature createFeature(String name, String namespaceName, String environmentName, Boolean enabled, JsonNode metadata) {
         Namespace namespace = namespaceService.findOrCreate(namespaceName);
         Environment environment = environmentService.findOrCreate(environmentName);
@@ -60,13 +163,18 @@ public class FeatureService {
                 .metadata(metadata)
                 .build();
 
-        return featureRepository.save(feature);
+        Feature saved = featureRepository.save(feature);
+        changeLog.record(saved, FeatureChange.Type.UPSERT);
+        afterCommit(saved);
+
+        return saved;
     }
 
-    @CacheEvict(value = {"features", "metrics"}, allEntries = true)
+    @Transactional
     public Feature updateFeature(Long id, Boolean enabled, JsonNode metadata) {
         Feature feature = featureRepository.findByIdWithRelations(id)
                 .orElseThrow(() -> new com.togglr.rest.exception.EntityNotFoundException("Feature", id));
+        Feature before = copyOf(feature);
 
         if (enabled != null) {
             feature.setEnabled(enabled);
@@ -76,16 +184,154 @@ public class FeatureService {
             feature.setMetadata(metadata);
         }
 
-        return featureRepository.save(feature);
+        Feature saved = featureRepository.save(feature);
+        changeLog.record(saved, FeatureChange.Type.UPSERT);
+        afterCommit(saved);
+        eventPublisher.publishEvent(new FeatureUpdatedEvent(before, saved));
+
+        return saved;
     }
 
-    @CacheEvict(value = {"features", "metrics"}, allEntries = true)
+    @Transactional
     public void deleteFeature(Long id) {
-        featureRepository.deleteById(id);
+        featureRepository.findByIdWithRelations(id).ifPresent(feature -> {
+            featureRepository.delete(feature);
+            changeLog.record(feature, FeatureChange.Type.DELETE);
+            afterCommit(feature);
+            eventPublisher.publishEvent(new FeatureDeletedEvent(feature));
+        });
+    }
+
+    @Transactional(readOnly = true)
+    @Cacheable(value = "features", key = "'" + CatalogCache.ALL_FEATURES_KEY + "'", sync = true)
+    public List<FeatureView> getAllFeatures() {
+        return degradedMode.getDatabase().call(featureRepository::findAllViews);
+    }
+
+    @Scheduled(fixedDelayString = "${togglr.snapshot.refresh-interval:60000}")
+    public void refreshSnapshots() {
+        boolean allReconciled = true;
+
+        for (SnapshotKey key : snapshotRegistry.keys()) {
+            try {
+                snapshotRegistry.refresh(key, sinceVersion -> loadUpdate(key, sinceVersion));
+            } catch (CircuitBreakerOpenException e) {
+                log.debug("Skipping snapshot refresh: {}", e.getMessage());
+                return;
+            } catch (com.togglr.rest.exception.EntityNotFoundException e) {
+                log.info("Dropping snapshot for namespace: {} and environment: {}: {}", key.namespace(), key.environment(), e.getMessage());
+                snapshotRegistry.evict(key);
+            } catch (Exception e) {
+                allReconciled = false;
+                log.warn("Failed to refresh snapshot for namespace: {} and environment: {}", key.namespace(), key.environment(), e);
+            }
+        }
+
+        try {
+            catalogCache.refresh();
+        } catch (RuntimeException e) {
+            log.warn("Failed to check the feature catalog for changes: {}", e.getMessage());
+            return;
+        }
+
+        // Restored snapshots only count as verified once every one of them has been reconciled
+        if (allReconciled) {
+            degradedMode.markSnapshotsVerified();
+        }
+    }
+
+    /**
+     * Version of the whole catalog, the ETag of {@link #getAllFeatures()}; read before the catalog itself,
+     * so the catalog can only be newer than its version.
+     */
+    public long getCatalogVersion() {
+        return catalogCache.version();
+    }
+
+    // Runs after commit; the catalog cache evicts before it moves the catalog version, so a version is never
+    // paired with content older than itself. The snapshot is brought up to the change log rather than patched
+    // with this write alone, so writes committed elsewhere are not skipped. Other nodes are told last, once
+    // the catalog eviction has reached the shared cache.
+    private void afterCommit(Feature feature) {
+        SnapshotKey key = new SnapshotKey(feature.getNamespace().getName(), feature.getEnvironment().getName());
+
+        TransactionCallbacks.afterCommit(() -> {
+            catalogCache.changed();
+            synchronize(key);
+            invalidationBus.publish(SNAPSHOT_REGION, key.encode());
+        });
+    }
+
+    private void synchronize(SnapshotKey key) {
+        try {
+            snapshotRegistry.written(key, sinceVersion -> loadUpdate(key, sinceVersion));
+        } catch (RuntimeException e) {
+            log.warn("Failed to update snapshot for namespace: {} and environment: {}, dropping it: {}",
+                    key.namespace(), key.environment(), e.getMessage());
+            snapshotRegistry.evict(key);
+        }
     }
 
-    @Cacheable(value = "features", key = "'all_features'")
-    public List<Feature> getAllFeatures() {
-        return featureRepository.findAllWithRelations();
+    private static Feature copyOf(Feature feature) {
+        Feature copy = Feature.builder()
+                .name(feature.getName())
+                .namespace(feature.getNamespace())
+                .environment(feature.getEnvironment())
+                .enabled(feature.getEnabled())
+                .metadata(feature.getMetadata() != null ? feature.getMetadata().deepCopy() : null)
+                .build();
+        copy.setId(feature.getId());
+        copy.setCreatedAt(feature.getCreatedAt());
+        copy.setUpdatedAt(feature.getUpdatedAt());
+
+        return copy;
+    }
+
+    private FeatureSnapshot loadSnapshot(String namespaceName, String environmentName) {
+        return degradedMode.getDatabase().call(() -> {
+            Namespace namespace = namespaceService.findByName(namespaceName);
+            Environment environment = environmentService.findByName(environmentName);
+            // Read before the features, so the snapshot can only be newer than its version; the next
+            // update from the change log applies the difference again, which is harmless
+            long version = changeLog.latestVersion(namespace, environment);
+
+            return FeatureSnapshot.of(namespaceName, environmentName, version,
+                    featureRepository.findViewsByNamespaceIdAndEnvironmentId(namespace.getId(), environment.getId()));
+        });
+    }
+
+    private SnapshotUpdate loadUpdate(SnapshotKey key, long sinceVersion) {
+        return degradedMode.getDatabase().call(() -> {
+            Namespace namespace = namespaceService.findByName(key.namespace());
+            Environment environment = environmentService.findByName(key.environment());
+            long version = changeLog.latestVersion(namespace, environment);
+
+            if (version <= sinceVersion) {
+                return SnapshotUpdate.incremental(version, List.of());
+            }
+
+            Optional<List<FeatureChangeEntry>> entries = changeLog.entriesBetween(namespace, environment, sinceVersion, version);
+            List<FeatureView> features = featureRepository.findViewsByNamespaceIdAndEnvironmentId(namespace.getId(), environment.getId());
+
+            return entries
+                    .map(found -> SnapshotUpdate.incremental(version, toChanges(found, features)))
+                    .orElseGet(() -> SnapshotUpdate.full(version, features));
+        });
+    }
+
+    // Each entry only names the feature; its content is taken from the current features, which are at least as
+    // recent as the entry. A feature no longer present was deleted, whatever the entry recorded.
+    private static List<FeatureChange> toChanges(List<FeatureChangeEntry> entries, List<FeatureView> features) {
+        Map<String, FeatureView> byName = features.stream()
+                .collect(Collectors.toMap(FeatureView::name, feature -> feature, (first, second) -> second));
+
+        return entries.stream()
+                .map(entry -> {
+                    FeatureView feature = byName.get(entry.getFeatureName());
+                    return feature != null
+                            ? FeatureChange.upsert(entry.getId(), feature)
+                            : FeatureChange.delete(entry.getId(), entry.getFeatureName());
+                })
+                .toList();
     }
 }
@@ -15,7 +15,7 @@ public class MetricsService {
     private final EnvironmentRepository environmentRepository;
     private final NamespaceRepository namespaceRepository;
 
-    @Cacheable(value = "metrics", key = "'dashboard'")
+    @Cacheable(value = "metrics", key = "'dashboard'", sync = true)
     public MetricsResponse getDashboardMetrics() {
         return new MetricsResponse(
                 featureRepository.count(),
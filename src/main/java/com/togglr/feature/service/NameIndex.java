@@ -0,0 +1,39 @@
+package com.togglr.feature.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * In-memory name to entity index for small, rarely changing tables. It is only a shortcut:
+ * a miss falls back to the repository, so an entry missing after a concurrent reload costs one query, not a wrong answer.
+ */
+class NameIndex<T> {
+    private final Function<T, String> nameOf;
+    private volatile Map<String, T> entries = new ConcurrentHashMap<>();
+
+    NameIndex(Function<T, String> nameOf) {
+        this.nameOf = nameOf;
+    }
+
+    Optional<T> find(String name) {
+        return Optional.ofNullable(entries.get(name));
+    }
+
+    T put(T entity) {
+        entries.put(nameOf.apply(entity), entity);
+        return entity;
+    }
+
+    void remove(String name) {
+        entries.remove(name);
+    }
+
+    void reload(Collection<T> all) {
+        Map<String, T> reloaded = new ConcurrentHashMap<>();
+        all.forEach(entity -> reloaded.put(nameOf.apply(entity), entity));
+        entries = reloaded;
+    }
+}
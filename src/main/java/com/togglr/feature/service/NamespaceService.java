@@ -1,19 +1,31 @@
 package com.togglr.feature.service;
 
 
+import com.togglr.common.transaction.TransactionCallbacks;
 import com.togglr.feature.entity.Namespace;
+import com.togglr.feature.event.NamespaceDeletedEvent;
 import com.togglr.feature.repository.FeatureRepository;
 import com.togglr.feature.repository.NamespaceRepository;
+import com.togglr.feature.snapshot.FeatureSnapshotRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class NamespaceService {
     private final NamespaceRepository namespaceRepository;
     private final FeatureRepository featureRepository;
+    private final FeatureSnapshotRegistry snapshotRegistry;
+    private final FeatureChangeLog changeLog;
+    private final CatalogCache catalogCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NameIndex<Namespace> index = new NameIndex<>(Namespace::getName);
 
     public List<Namespace> findAll() {
         return namespaceRepository.findAll();
@@ -25,18 +37,37 @@ public class NamespaceService {
     }
 
     public Namespace findByName(String name) {
-        return namespaceRepository.findByName(name)
+        return findIndexed(name)
                 .orElseThrow(() -> new com.togglr.rest.exception.EntityNotFoundException("Namespace", name));
     }
 
     public Namespace create(String name) {
-        return namespaceRepository.save(Namespace.builder().name(name).build());
+        Namespace saved = namespaceRepository.save(Namespace.builder().name(name).build());
+        TransactionCallbacks.afterCommit(() -> {
+            index.put(saved);
+            snapshotRegistry.namespaceCreated(saved.getName());
+        });
+
+        return saved;
     }
 
+    @Transactional
     public Namespace update(Long id, String name) {
         Namespace namespace = findById(id);
+        String previousName = namespace.getName();
         namespace.setName(name);
-        return namespaceRepository.save(namespace);
+
+        Namespace saved = namespaceRepository.save(namespace);
+        // Every feature of the namespace is now listed under the new name
+        changeLog.recordRenamed(featureRepository.findByNamespace(saved));
+        TransactionCallbacks.afterCommit(() -> {
+            index.remove(previousName);
+            index.put(saved);
+            catalogCache.changed();
+            snapshotRegistry.namespaceRenamed(previousName, saved.getName());
+        });
+
+        return saved;
     }
 
     public void delete(Long id) {
@@ -46,13 +77,27 @@ public class NamespaceService {
             throw new com.togglr.rest.exception.BadRequestException("Cannot delete namespace with " + featureCount + " associated features");
         }
         namespaceRepository.deleteById(id);
+        TransactionCallbacks.afterCommit(() -> index.remove(namespace.getName()));
+        eventPublisher.publishEvent(new NamespaceDeletedEvent(namespace));
     }
 
     public Namespace findOrCreate(String name) {
+        // Writes go to the database so a namespace deleted on another node is never reused from a stale index
         return namespaceRepository.findByName(name)
+                .map(index::put)
                 .orElseGet(() -> create(name));
     }
 
+    @Scheduled(fixedDelayString = "${togglr.snapshot.refresh-interval:60000}")
+    public void reloadIndex() {
+        index.reload(namespaceRepository.findAll());
+    }
+
+    private Optional<Namespace> findIndexed(String name) {
+        return index.find(name)
+                .or(() -> namespaceRepository.findByName(name).map(index::put));
+    }
+
     public long countTotalFeaturesByNamespace(Namespace namespace) {
         return featureRepository.countByNamespace(namespace);
     }
@@ -0,0 +1,28 @@
+package com.togglr.feature.service;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Remembers, for the current request, whether serving it needed a database read, so callers
+ * can tell where a result came from without probing the cache themselves.
+ */
+public final class ReadOrigin {
+    private static final String DATABASE_ATTRIBUTE = ReadOrigin.class.getName() + ".database";
+
+    private ReadOrigin() {
+    }
+
+    static void markDatabase() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+
+        if (attributes != null) {
+            attributes.setAttribute(DATABASE_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    public static boolean isDatabase() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null && attributes.getAttribute(DATABASE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+}
@@ -0,0 +1,15 @@
+package com.togglr.feature.snapshot;
+
+public record FeatureChange(long version, Type type, String name, FeatureView feature) {
+    public enum Type {
+        UPSERT, DELETE
+    }
+
+    public static FeatureChange upsert(long version, FeatureView feature) {
+        return new FeatureChange(version, Type.UPSERT, feature.name(), feature);
+    }
+
+    public static FeatureChange delete(long version, String name) {
+        return new FeatureChange(version, Type.DELETE, name, null);
+    }
+}
@@ -0,0 +1,145 @@
+package com.togglr.feature.snapshot;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable view of every feature in one (namespace, environment) pair.
+ * Writes never modify an existing snapshot, they derive a new one with a higher version
+ * and append what changed to a bounded history, so readers can ask for changes since a version.
+ * Versions are ids of the shared change log, so the same version means the same content on every node.
+ */
+@Getter
+public final class FeatureSnapshot {
+    static final int MAX_HISTORY = 256;
+
+    private final String namespace;
+    private final String environment;
+    private final long version;
+    private final Map<String, FeatureView> featuresByName;
+    private final List<FeatureView> features;
+    private final List<FeatureView> enabledFeatures;
+    private final long historyStart;
+    private final List<FeatureChange> history;
+
+    private FeatureSnapshot(String namespace, String environment, long version, Map<String, FeatureView> featuresByName,
+                            long historyStart, List<FeatureChange> history) {
+        this.namespace = namespace;
+        this.environment = environment;
+        this.version = version;
+        this.featuresByName = featuresByName;
+        this.features = List.copyOf(featuresByName.values());
+        this.enabledFeatures = features.stream()
+                .filter(feature -> Boolean.TRUE.equals(feature.enabled()))
+                .toList();
+        this.historyStart = historyStart;
+        this.history = history;
+    }
+
+    public static FeatureSnapshot of(String namespace, String environment, long version, Collection<FeatureView> features) {
+        Map<String, FeatureView> byName = new LinkedHashMap<>();
+        features.forEach(feature -> byName.put(feature.name(), feature));
+
+        return new FeatureSnapshot(namespace, environment, version, Collections.unmodifiableMap(byName), version, List.of());
+    }
+
+    public Optional<FeatureView> find(String name) {
+        return Optional.ofNullable(featuresByName.get(name));
+    }
+
+    /**
+     * Applies changes read from the change log, skipping those this snapshot already holds.
+     */
+    public FeatureSnapshot advance(List<FeatureChange> changes, long newVersion) {
+        Map<String, FeatureView> byName = new LinkedHashMap<>(featuresByName);
+        List<FeatureChange> applied = new ArrayList<>(changes.size());
+
+        for (FeatureChange change : changes) {
+            if (change.version() <= version) {
+                continue;
+            }
+
+            if (change.type() == FeatureChange.Type.UPSERT) {
+                byName.put(change.name(), change.feature());
+            } else {
+                byName.remove(change.name());
+            }
+
+            applied.add(change);
+        }
+
+        return derive(byName, newVersion, applied);
+    }
+
+    /**
+     * Returns a snapshot holding {@code current} at {@code newVersion}, or this instance when nothing
+     * differs and the version would not move.
+     */
+    public FeatureSnapshot reconcile(Collection<FeatureView> current, long newVersion) {
+        Map<String, FeatureView> byName = new LinkedHashMap<>();
+        List<FeatureChange> changes = new ArrayList<>();
+
+        for (FeatureView feature : current) {
+            byName.put(feature.name(), feature);
+
+            if (!feature.equals(featuresByName.get(feature.name()))) {
+                changes.add(FeatureChange.upsert(newVersion, feature));
+            }
+        }
+
+        featuresByName.keySet().stream()
+                .filter(name -> !byName.containsKey(name))
+                .forEach(name -> changes.add(FeatureChange.delete(newVersion, name)));
+
+        return changes.isEmpty() && newVersion <= version ? this : derive(byName, newVersion, changes);
+    }
+
+    /**
+     * Changes made after {@code sinceVersion}, in order, or empty when the history no longer reaches back that far.
+     * A version beyond this snapshot is unknown as well; it was not issued for this content.
+     */
+    public Optional<List<FeatureChange>> changesSince(long sinceVersion) {
+        if (sinceVersion > version) {
+            return Optional.empty();
+        }
+
+        if (sinceVersion == version) {
+            return Optional.of(List.of());
+        }
+
+        if (sinceVersion < historyStart) {
+            return Optional.empty();
+        }
+
+        return Optional.of(history.stream()
+                .filter(change -> change.version() > sinceVersion)
+                .toList());
+    }
+
+    private FeatureSnapshot derive(Map<String, FeatureView> byName, long newVersion, List<FeatureChange> changes) {
+        List<FeatureChange> newHistory = new ArrayList<>(history.size() + changes.size());
+        newHistory.addAll(history);
+        newHistory.addAll(changes);
+
+        long newHistoryStart = historyStart;
+
+        while (newHistory.size() > MAX_HISTORY) {
+            newHistoryStart = newHistory.remove(0).version();
+        }
+
+        // Changes sharing a version must be trimmed together, or a reader could miss part of that version.
+        while (!newHistory.isEmpty() && newHistory.get(0).version() <= newHistoryStart) {
+            newHistory.remove(0);
+        }
+
+        return new FeatureSnapshot(namespace, environment, newVersion, Collections.unmodifiableMap(byName),
+                newHistoryStart, List.copyOf(newHistory));
+    }
+}
@@ -0,0 +1,4 @@
+package com.togglr.feature.snapshot;
+
+public record FeatureSnapshotChangedEvent(FeatureSnapshot snapshot) {
+}
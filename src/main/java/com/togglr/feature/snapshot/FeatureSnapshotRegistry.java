@@ -0,0 +1,289 @@
+package com.togglr.feature.snapshot;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.togglr.common.concurrent.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Holds the current {@link FeatureSnapshot} of every (namespace, environment) pair that has been read.
+ * Snapshots are swapped atomically, so readers never observe a partially applied write.
+ */
+@Slf4j
+@Component
+public class FeatureSnapshotRegistry {
+    private final ConcurrentMap<SnapshotKey, FeatureSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final AtomicLong modifications = new AtomicLong();
+    private final AtomicLong writeSequence = new AtomicLong();
+    private final AtomicLong catalogVersion = new AtomicLong(-1);
+    private final SingleFlight<SnapshotKey, FeatureSnapshot> loads;
+    private final Cache<SnapshotKey, String> missing;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public FeatureSnapshotRegistry(MeterRegistry meterRegistry,
+                                   ApplicationEventPublisher eventPublisher,
+                                   @Value("${togglr.snapshot.negative-cache.ttl:10000}") long negativeCacheTtl,
+                                   @Value("${togglr.snapshot.negative-cache.maximum-size:10000}") long negativeCacheMaximumSize) {
+        this.eventPublisher = eventPublisher;
+        this.loads = new SingleFlight<>("snapshots", meterRegistry);
+        this.missing = Caffeine.newBuilder()
+                .maximumSize(negativeCacheMaximumSize)
+                .expireAfterWrite(negativeCacheTtl, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, missing, "snapshots_missing");
+    }
+
+    public FeatureSnapshot get(String namespace, String environment, Supplier<FeatureSnapshot> loader) {
+        SnapshotKey key = new SnapshotKey(namespace, environment);
+        FeatureSnapshot snapshot = snapshots.get(key);
+
+        if (snapshot != null) {
+            return snapshot;
+        }
+
+        String missingReason = missing.getIfPresent(key);
+
+        if (missingReason != null) {
+            throw new com.togglr.rest.exception.EntityNotFoundException(missingReason);
+        }
+
+        return loads.load(key, () -> {
+            long writesBeforeLoad = writeSequence.get();
+            FeatureSnapshot loaded;
+
+            try {
+                loaded = loader.get();
+            } catch (com.togglr.rest.exception.EntityNotFoundException e) {
+                if (writeSequence.get() == writesBeforeLoad) {
+                    missing.put(key, e.getMessage());
+                }
+
+                throw e;
+            }
+
+            // A write committed while we were loading may not be visible in what we read, so only
+            // install the snapshot if nothing changed in between; the next read will load again.
+            if (writeSequence.get() != writesBeforeLoad) {
+                return loaded;
+            }
+
+            FeatureSnapshot existing = snapshots.putIfAbsent(key, loaded);
+
+            if (existing != null) {
+                return existing;
+            }
+
+            modifications.incrementAndGet();
+            return loaded;
+        });
+    }
+
+    public SnapshotCursor cursorOf(FeatureSnapshot snapshot) {
+        return cursorAt(snapshot.getVersion());
+    }
+
+    public SnapshotCursor cursorAt(long version) {
+        return new SnapshotCursor(version);
+    }
+
+    /**
+     * Returns the version a cursor points at, or empty when it is not a cursor.
+     */
+    public Optional<Long> resolve(String cursor) {
+        return SnapshotCursor.parse(cursor).map(SnapshotCursor::version);
+    }
+
+    public Optional<FeatureSnapshot> peek(String namespace, String environment) {
+        return Optional.ofNullable(snapshots.get(new SnapshotKey(namespace, environment)));
+    }
+
+    /**
+     * Version of the whole feature catalog as last read from the change log, or empty before it has been read.
+     * The same version means the same catalog on every node, so it is handed out as the catalog ETag.
+     */
+    public OptionalLong catalogVersion() {
+        long version = catalogVersion.get();
+        return version < 0 ? OptionalLong.empty() : OptionalLong.of(version);
+    }
+
+    /**
+     * Moves the catalog version forward; an older version read concurrently is ignored.
+     */
+    public void catalogAdvanced(long version) {
+        catalogVersion.accumulateAndGet(version, Math::max);
+    }
+
+    /**
+     * Every feature held in a snapshot; the best this node can offer when the catalog cannot be loaded.
+     */
+    public List<FeatureView> lastKnownFeatures() {
+        return snapshots.values().stream()
+                .flatMap(snapshot -> snapshot.getFeatures().stream())
+                .toList();
+    }
+
+    public List<FeatureSnapshot> snapshots() {
+        return List.copyOf(snapshots.values());
+    }
+
+    /**
+     * Moves whenever any snapshot is installed or changed.
+     */
+    public long modificationCount() {
+        return modifications.get();
+    }
+
+    public Set<SnapshotKey> keys() {
+        return Set.copyOf(snapshots.keySet());
+    }
+
+    /**
+     * Brings the pair up to date after a write committed, on this node or on another one. The loader receives
+     * the version the snapshot is at and reads what the database holds since, so writes this node was not told
+     * about are picked up as well.
+     */
+    public void written(SnapshotKey key, LongFunction<SnapshotUpdate> loader) {
+        writeSequence.incrementAndGet();
+        missing.invalidate(key);
+        refresh(key, loader);
+    }
+
+    public void namespaceCreated(String name) {
+        writeSequence.incrementAndGet();
+        missing.asMap().keySet().removeIf(key -> key.namespace().equals(name));
+    }
+
+    public void environmentCreated(String name) {
+        writeSequence.incrementAndGet();
+        missing.asMap().keySet().removeIf(key -> key.environment().equals(name));
+    }
+
+    /**
+     * Drops the snapshots held under the previous name and forgets that the new name was missing.
+     */
+    public void namespaceRenamed(String previousName, String name) {
+        writeSequence.incrementAndGet();
+        removeSnapshots(key -> key.namespace().equals(previousName));
+        missing.asMap().keySet().removeIf(key -> key.namespace().equals(name));
+    }
+
+    public void environmentRenamed(String previousName, String name) {
+        writeSequence.incrementAndGet();
+        removeSnapshots(key -> key.environment().equals(previousName));
+        missing.asMap().keySet().removeIf(key -> key.environment().equals(name));
+    }
+
+    /**
+     * Installs snapshots in bulk, e.g. while warming up or restoring from disk; pairs already held are
+     * brought up to the loaded version instead. Stops as soon as a write lands, since the loaded snapshots
+     * may predate it; the result tells whether every loaded pair was applied.
+     */
+    public PreloadResult preload(Supplier<Map<SnapshotKey, FeatureSnapshot>> loader) {
+        long writesBeforeLoad = writeSequence.get();
+        Map<SnapshotKey, FeatureSnapshot> loadedByKey = loader.get();
+        int loaded = 0;
+
+        for (Map.Entry<SnapshotKey, FeatureSnapshot> entry : loadedByKey.entrySet()) {
+            if (writeSequence.get() != writesBeforeLoad) {
+                break;
+            }
+
+            FeatureSnapshot current = entry.getValue();
+            AtomicReference<FeatureSnapshot> changed = new AtomicReference<>();
+
+            snapshots.compute(entry.getKey(), (key, snapshot) -> {
+                if (snapshot == null) {
+                    modifications.incrementAndGet();
+                    return current;
+                }
+
+                FeatureSnapshot reconciled = SnapshotUpdate.full(current.getVersion(), current.getFeatures()).applyTo(snapshot);
+
+                if (reconciled != snapshot) {
+                    changed.set(reconciled);
+                }
+
+                return reconciled;
+            });
+
+            publish(changed.get());
+            loaded++;
+        }
+
+        return new PreloadResult(loadedByKey.keySet(), loaded, loaded == loadedByKey.size());
+    }
+
+    /**
+     * Brings a held snapshot up to what the database holds; the loader receives the snapshot's version.
+     * Concurrent refreshes are harmless, since an update never moves a snapshot back.
+     */
+    public void refresh(SnapshotKey key, LongFunction<SnapshotUpdate> loader) {
+        FeatureSnapshot current = snapshots.get(key);
+
+        if (current == null) {
+            return;
+        }
+
+        SnapshotUpdate update = loader.apply(current.getVersion());
+        AtomicReference<FeatureSnapshot> changed = new AtomicReference<>();
+
+        snapshots.computeIfPresent(key, (k, snapshot) -> {
+            FeatureSnapshot updated = update.applyTo(snapshot);
+
+            if (updated != snapshot) {
+                changed.set(updated);
+            }
+
+            return updated;
+        });
+
+        publish(changed.get());
+    }
+
+    /**
+     * @param keys     every pair the loader returned
+     * @param loaded   how many of them were installed or reconciled
+     * @param complete whether all of them were, i.e. no write cut the preload short
+     */
+    public record PreloadResult(Set<SnapshotKey> keys, int loaded, boolean complete) {
+    }
+
+    public void evict(SnapshotKey key) {
+        if (snapshots.remove(key) != null) {
+            modifications.incrementAndGet();
+        }
+    }
+
+    private void removeSnapshots(Predicate<SnapshotKey> filter) {
+        if (snapshots.keySet().removeIf(filter)) {
+            modifications.incrementAndGet();
+        }
+    }
+
+    private void publish(FeatureSnapshot snapshot) {
+        if (snapshot != null) {
+            modifications.incrementAndGet();
+            eventPublisher.publishEvent(new FeatureSnapshotChangedEvent(snapshot));
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.togglr.feature.snapshot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.togglr.common.resilience.DegradedMode;
+import com.togglr.feature.cache.FeatureViewCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Keeps a binary copy of every snapshot on local disk and restores it when the bean starts, so the node can
+ * answer flag reads before, or without, reaching the database. Restored snapshots are marked unverified
+ * until the warm-up or the next refresh has reconciled them with the database.
+ * <p>
+ * Layout: magic {@code TGLS}, format version (short), CRC32C of the payload (int), payload length (int),
+ * then the payload: pair count, and per pair namespace, environment, version (long), feature count and the features
+ * encoded with {@link FeatureViewCodec}. The file is rewritten in full to a temporary file and moved
+ * into place atomically, so a crash never leaves a half-written snapshot behind.
+ */
+@Slf4j
+@Component
+public class FeatureSnapshotStore {
+    static final int MAGIC = 0x54474C53;
+    static final short FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 4 + 2 + 4 + 4;
+
+    private final FeatureSnapshotRegistry snapshotRegistry;
+    private final DegradedMode degradedMode;
+    private final FeatureViewCodec codec;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Path path;
+    private volatile long writtenVersion = -1;
+
+    public FeatureSnapshotStore(FeatureSnapshotRegistry snapshotRegistry,
+                                DegradedMode degradedMode,
+                                MeterRegistry meterRegistry,
+                                @Value("${togglr.snapshot.store.enabled:true}") boolean enabled,
+                                @Value("${togglr.snapshot.store.path:${java.io.tmpdir}/togglr/feature-snapshots.bin}") Path path) {
+        this.snapshotRegistry = snapshotRegistry;
+        this.degradedMode = degradedMode;
+        this.codec = new FeatureViewCodec(new ObjectMapper());
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.path = path;
+    }
+
+    @PostConstruct
+    public void restore() {
+        if (!enabled || !Files.exists(path)) {
+            return;
+        }
+
+        long start = System.nanoTime();
+
+        try {
+            Map<SnapshotKey, FeatureSnapshot> snapshotsByKey = read();
+            int restored = snapshotRegistry.preload(() -> snapshotsByKey).loaded();
+            writtenVersion = snapshotRegistry.modificationCount();
+
+            if (restored > 0) {
+                degradedMode.markSnapshotsUnverified();
+            }
+
+            long elapsed = System.nanoTime() - start;
+            Timer.builder("togglr.snapshot.store.load")
+                    .description("Time spent restoring snapshots from disk at startup")
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            log.info("Restored {} snapshots ({} features) from {} in {} ms", restored,
+                    snapshotsByKey.values().stream().mapToInt(snapshot -> snapshot.getFeatures().size()).sum(), path, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable snapshot file {}: {}", path, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${togglr.snapshot.store.flush-interval:5000}")
+    public void flush() {
+        long version = snapshotRegistry.modificationCount();
+
+        if (!enabled || version == writtenVersion) {
+            return;
+        }
+
+        try {
+            write(snapshotRegistry.snapshots());
+            writtenVersion = version;
+        } catch (IOException e) {
+            log.warn("Failed to write snapshot file {}: {}", path, e.getMessage());
+        }
+    }
+
+    Map<SnapshotKey, FeatureSnapshot> read() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a snapshot file");
+            }
+
+            short formatVersion = buffer.getShort();
+
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot format version " + formatVersion);
+            }
+
+            int checksum = buffer.getInt();
+            int length = buffer.getInt();
+
+            if (length != buffer.remaining()) {
+                throw new IOException("Truncated snapshot file");
+            }
+
+            ByteBuffer payload = buffer.slice();
+            CRC32C crc = new CRC32C();
+            crc.update(payload.duplicate());
+
+            if ((int) crc.getValue() != checksum) {
+                throw new IOException("Snapshot checksum mismatch");
+            }
+
+            return readPayload(payload);
+        }
+    }
+
+    void write(List<FeatureSnapshot> snapshots) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(payload)) {
+            out.writeInt(snapshots.size());
+
+            for (FeatureSnapshot snapshot : snapshots) {
+                FeatureViewCodec.writeString(out, snapshot.getNamespace());
+                FeatureViewCodec.writeString(out, snapshot.getEnvironment());
+                out.writeLong(snapshot.getVersion());
+                out.writeInt(snapshot.getFeatures().size());
+
+                for (FeatureView feature : snapshot.getFeatures()) {
+                    codec.write(out, feature);
+                }
+            }
+        }
+
+        byte[] bytes = payload.toByteArray();
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .putShort(FORMAT_VERSION)
+                .putInt((int) crc.getValue())
+                .putInt(bytes.length)
+                .flip();
+
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer[] buffers = {header, ByteBuffer.wrap(bytes)};
+
+            while (buffers[1].hasRemaining()) {
+                channel.write(buffers);
+            }
+
+            channel.force(true);
+        }
+
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Map<SnapshotKey, FeatureSnapshot> readPayload(ByteBuffer payload) throws IOException {
+        try {
+            int pairs = payload.getInt();
+            Map<SnapshotKey, FeatureSnapshot> snapshotsByKey = new LinkedHashMap<>();
+
+            for (int i = 0; i < pairs; i++) {
+                SnapshotKey key = new SnapshotKey(FeatureViewCodec.readString(payload), FeatureViewCodec.readString(payload));
+                long version = payload.getLong();
+                int count = payload.getInt();
+                List<FeatureView> features = new ArrayList<>(count);
+
+                for (int j = 0; j < count; j++) {
+                    features.add(codec.read(payload));
+                }
+
+                snapshotsByKey.put(key, FeatureSnapshot.of(key.namespace(), key.environment(), version, features));
+            }
+
+            return snapshotsByKey;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Corrupt snapshot payload", e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.togglr.feature.snapshot;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.togglr.feature.entity.Feature;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable, detached copy of a feature as served by the read path, with the namespace and environment
+ * reduced to their names. Built straight from a JPQL constructor query, or from an entity after a write.
+ * The metadata is serialized once on construction and held as a node that cannot be modified, so every
+ * reader can share it and it is written out verbatim.
+ */
+public record FeatureView(
+        Long id,
+        String name,
+        String namespace,
+        String environment,
+        Boolean enabled,
+        JsonNode metadata,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt
+) {
+    public FeatureView {
+        metadata = readOnly(metadata);
+    }
+
+    public static FeatureView from(Feature feature) {
+        return new FeatureView(
+                feature.getId(),
+                feature.getName(),
+                feature.getNamespace().getName(),
+                feature.getEnvironment().getName(),
+                feature.getEnabled(),
+                feature.getMetadata(),
+                feature.getCreatedAt(),
+                feature.getUpdatedAt()
+        );
+    }
+
+    /**
+     * Read-only metadata holding {@code json}, which must already be valid JSON.
+     */
+    public static JsonNode readOnlyMetadata(String json) {
+        return json != null ? new POJONode(new RawValue(json)) : null;
+    }
+
+    private static JsonNode readOnly(JsonNode metadata) {
+        if (metadata == null || metadata instanceof POJONode node && node.getPojo() instanceof RawValue) {
+            return metadata;
+        }
+
+        return readOnlyMetadata(metadata.toString());
+    }
+}
@@ -0,0 +1,33 @@
+package com.togglr.feature.snapshot;
+
+import java.util.Optional;
+
+/**
+ * Position in the change history of a pair: the id of the last change it includes. Ids come from the shared
+ * change log, so a cursor stays valid across restarts and on every node; cursors in any other form,
+ * e.g. issued before the log existed, do not parse and lead to a full response.
+ */
+public record SnapshotCursor(long version) {
+    public static Optional<SnapshotCursor> parse(String value) {
+        if (value == null || value.isEmpty() || value.length() > 19) {
+            return Optional.empty();
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isDigit(value.charAt(i))) {
+                return Optional.empty();
+            }
+        }
+
+        try {
+            return Optional.of(new SnapshotCursor(Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(version);
+    }
+}
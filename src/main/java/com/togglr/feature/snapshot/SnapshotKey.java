@@ -0,0 +1,30 @@
+package com.togglr.feature.snapshot;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+public record SnapshotKey(String namespace, String environment) {
+    /**
+     * Renders the key as {@code namespace|environment}, each part URL-encoded so names may contain the separator.
+     */
+    public String encode() {
+        return URLEncoder.encode(namespace, StandardCharsets.UTF_8) + "|" + URLEncoder.encode(environment, StandardCharsets.UTF_8);
+    }
+
+    public static Optional<SnapshotKey> decode(String value) {
+        int separator = value.indexOf('|');
+
+        if (separator < 0) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(new SnapshotKey(URLDecoder.decode(value.substring(0, separator), StandardCharsets.UTF_8),
+                    URLDecoder.decode(value.substring(separator + 1), StandardCharsets.UTF_8)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
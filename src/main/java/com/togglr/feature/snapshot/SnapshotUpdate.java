@@ -0,0 +1,28 @@
+package com.togglr.feature.snapshot;
+
+import java.util.List;
+
+/**
+ * What the database holds for one pair at {@code version}: either the changes recorded since the
+ * snapshot's version, or, when the change log no longer reaches back that far, every feature.
+ */
+public record SnapshotUpdate(long version, List<FeatureChange> changes, List<FeatureView> features) {
+    public static SnapshotUpdate incremental(long version, List<FeatureChange> changes) {
+        return new SnapshotUpdate(version, changes, null);
+    }
+
+    public static SnapshotUpdate full(long version, List<FeatureView> features) {
+        return new SnapshotUpdate(version, List.of(), features);
+    }
+
+    /**
+     * Returns the snapshot brought up to this update, or {@code snapshot} itself when it is already as recent.
+     */
+    public FeatureSnapshot applyTo(FeatureSnapshot snapshot) {
+        if (version <= snapshot.getVersion()) {
+            return snapshot;
+        }
+
+        return features != null ? snapshot.reconcile(features, version) : snapshot.advance(changes, version);
+    }
+}
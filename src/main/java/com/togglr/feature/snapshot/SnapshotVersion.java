@@ -0,0 +1,7 @@
+package com.togglr.feature.snapshot;
+
+public record SnapshotVersion(String namespace, String environment, long version) {
+    public SnapshotKey key() {
+        return new SnapshotKey(namespace, environment);
+    }
+}
@@ -0,0 +1,207 @@
+package com.togglr.feature.stream;
+
+import com.togglr.feature.service.FeatureService;
+import com.togglr.feature.snapshot.FeatureChange;
+import com.togglr.feature.snapshot.FeatureSnapshot;
+import com.togglr.feature.snapshot.FeatureSnapshotChangedEvent;
+import com.togglr.feature.snapshot.FeatureSnapshotRegistry;
+import com.togglr.feature.snapshot.SnapshotKey;
+import com.togglr.rest.dto.FeatureChangeResponse;
+import com.togglr.rest.dto.FeatureResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pushes feature changes of one (namespace, environment) to server-sent event subscribers.
+ * Writers only enqueue into each subscriber's bounded buffer; sending happens on a separate pool,
+ * and a subscriber whose buffer overflows is disconnected so it can reconnect and resume.
+ */
+@Slf4j
+@Service
+public class FeatureStreamService {
+    private final FeatureService featureService;
+    private final FeatureSnapshotRegistry snapshotRegistry;
+    private final ConcurrentMap<SnapshotKey, Set<FeatureStreamSubscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService sender;
+    private final long timeout;
+    private final int bufferSize;
+
+    public FeatureStreamService(FeatureService featureService,
+                                FeatureSnapshotRegistry snapshotRegistry,
+                                @Value("${togglr.stream.timeout:1800000}") long timeout,
+                                @Value("${togglr.stream.buffer-size:256}") int bufferSize,
+                                @Value("${togglr.stream.sender-threads:4}") int senderThreads) {
+        this.featureService = featureService;
+        this.snapshotRegistry = snapshotRegistry;
+        this.timeout = timeout;
+        this.bufferSize = bufferSize;
+        this.sender = Executors.newFixedThreadPool(senderThreads);
+    }
+
+    public SseEmitter subscribe(String namespaceName, String environmentName, String lastEventId) {
+        // Resolving the snapshot first turns unknown namespaces/environments into a 404 instead of an open stream.
+        featureService.getSnapshot(namespaceName, environmentName);
+
+        SnapshotKey key = new SnapshotKey(namespaceName, environmentName);
+        SseEmitter emitter = new SseEmitter(timeout);
+        FeatureStreamSubscriber subscriber = new FeatureStreamSubscriber(key, emitter, bufferSize);
+
+        emitter.onCompletion(() -> unregister(subscriber));
+        emitter.onTimeout(() -> unregister(subscriber));
+        emitter.onError(e -> unregister(subscriber));
+
+        subscribers.compute(key, (k, pairSubscribers) -> {
+            Set<FeatureStreamSubscriber> updated = pairSubscribers != null ? pairSubscribers : ConcurrentHashMap.newKeySet();
+            updated.add(subscriber);
+            return updated;
+        });
+
+        synchronized (subscriber) {
+            FeatureSnapshot snapshot = featureService.getSnapshot(namespaceName, environmentName);
+            Optional<List<FeatureChange>> missed = snapshotRegistry.resolve(lastEventId)
+                    .flatMap(since -> featureService.getChangesSince(snapshot, since));
+
+            if (missed.isPresent()) {
+                enqueueChanges(subscriber, missed.get());
+            } else {
+                enqueue(subscriber, snapshotEvent(snapshot));
+            }
+
+            subscriber.setVersion(snapshot.getVersion());
+        }
+
+        log.debug("Subscribed to feature stream for namespace: {} and environment: {}", namespaceName, environmentName);
+        return emitter;
+    }
+
+    @EventListener
+    public void onSnapshotChanged(FeatureSnapshotChangedEvent event) {
+        FeatureSnapshot snapshot = event.snapshot();
+        Set<FeatureStreamSubscriber> pairSubscribers = subscribers.get(new SnapshotKey(snapshot.getNamespace(), snapshot.getEnvironment()));
+
+        if (pairSubscribers == null) {
+            return;
+        }
+
+        for (FeatureStreamSubscriber subscriber : pairSubscribers) {
+            synchronized (subscriber) {
+                if (!subscriber.isReady() || snapshot.getVersion() <= subscriber.getVersion()) {
+                    continue;
+                }
+
+                // Events can arrive out of order, so send everything this snapshot knows about since the
+                // subscriber's version rather than only the change that triggered the event.
+                Optional<List<FeatureChange>> changes = snapshot.changesSince(subscriber.getVersion());
+
+                if (changes.isPresent()) {
+                    enqueueChanges(subscriber, changes.get());
+                } else {
+                    enqueue(subscriber, snapshotEvent(snapshot));
+                }
+
+                subscriber.setVersion(snapshot.getVersion());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${togglr.stream.heartbeat-interval:15000}")
+    public void sendHeartbeats() {
+        subscribers.values().forEach(pairSubscribers -> pairSubscribers
+                .forEach(subscriber -> enqueue(subscriber, SseEmitter.event().comment("heartbeat"))));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(pairSubscribers -> pairSubscribers
+                .forEach(subscriber -> subscriber.getEmitter().complete()));
+        sender.shutdown();
+    }
+
+    private SseEmitter.SseEventBuilder snapshotEvent(FeatureSnapshot snapshot) {
+        return SseEmitter.event()
+                .id(snapshotRegistry.cursorOf(snapshot).toString())
+                .name("snapshot")
+                .data(snapshot.getFeatures().stream().map(FeatureResponse::from).toList());
+    }
+
+    // Each event carries the cursor of its own change, so a client that drops mid-replay resumes right after
+    // the last change it received. Changes sharing a version only get the id on the last of them; an event
+    // without id leaves the client's Last-Event-ID unchanged, so a partly received version is replayed whole.
+    private void enqueueChanges(FeatureStreamSubscriber subscriber, List<FeatureChange> changes) {
+        for (int i = 0; i < changes.size(); i++) {
+            FeatureChange change = changes.get(i);
+            boolean lastOfVersion = i == changes.size() - 1 || changes.get(i + 1).version() != change.version();
+            SseEmitter.SseEventBuilder event = SseEmitter.event();
+
+            if (lastOfVersion) {
+                event.id(snapshotRegistry.cursorAt(change.version()).toString());
+            }
+
+            enqueue(subscriber, event
+                    .name("change")
+                    .data(FeatureChangeResponse.from(change)));
+        }
+    }
+
+    private void enqueue(FeatureStreamSubscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!subscriber.getBuffer().offer(event)) {
+            log.info("Dropping slow feature stream subscriber for namespace: {} and environment: {}",
+                    subscriber.getKey().namespace(), subscriber.getKey().environment());
+            unregister(subscriber);
+            subscriber.getEmitter().complete();
+            return;
+        }
+
+        scheduleDrain(subscriber);
+    }
+
+    private void scheduleDrain(FeatureStreamSubscriber subscriber) {
+        if (subscriber.getDraining().compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(FeatureStreamSubscriber subscriber) {
+        try {
+            SseEmitter.SseEventBuilder event;
+
+            while ((event = subscriber.getBuffer().poll()) != null) {
+                subscriber.getEmitter().send(event);
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Feature stream subscriber disconnected: {}", e.getMessage());
+            unregister(subscriber);
+            subscriber.getBuffer().clear();
+            // Ends the async request too, unless the container already did, so the connection is not held until timeout
+            subscriber.getEmitter().completeWithError(e);
+            return;
+        } finally {
+            subscriber.getDraining().set(false);
+        }
+
+        if (!subscriber.getBuffer().isEmpty()) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    private void unregister(FeatureStreamSubscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.getKey(), (key, pairSubscribers) -> {
+            pairSubscribers.remove(subscriber);
+            return pairSubscribers.isEmpty() ? null : pairSubscribers;
+        });
+    }
+}
@@ -0,0 +1,31 @@
+package com.togglr.feature.stream;
+
+import com.togglr.feature.snapshot.SnapshotKey;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Getter
+class FeatureStreamSubscriber {
+    private final SnapshotKey key;
+    private final SseEmitter emitter;
+    private final BlockingQueue<SseEmitter.SseEventBuilder> buffer;
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    @Setter
+    private volatile long version = -1;
+
+    FeatureStreamSubscriber(SnapshotKey key, SseEmitter emitter, int bufferSize) {
+        this.key = key;
+        this.emitter = emitter;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+    }
+
+    boolean isReady() {
+        return version >= 0;
+    }
+}
@@ -0,0 +1,39 @@
+package com.togglr.rest.advice;
+
+import com.togglr.common.resilience.DegradedMode;
+import com.togglr.rest.controller.FeatureController;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Marks feature responses served while the database is unavailable, so clients know the values are last-known.
+ */
+@ControllerAdvice(assignableTypes = FeatureController.class)
+@RequiredArgsConstructor
+public class StaleResponseAdvice implements ResponseBodyAdvice<Object> {
+    public static final String STALE_HEADER = "X-Togglr-Stale";
+
+    private final DegradedMode degradedMode;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (degradedMode.isStale()) {
+            response.getHeaders().set(STALE_HEADER, "true");
+        }
+
+        return body;
+    }
+}
@@ -0,0 +1,157 @@
+package com.togglr.rest.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.togglr.feature.snapshot.SnapshotKey;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * Keeps ready-to-write JSON bodies per data version. Versions only move forward, so entries
+ * are never invalidated; superseded ones simply stop being read and age out by weight.
+ * Versions of different pairs overlap (every pair without logged changes is at 0), so pair
+ * bodies are keyed by the pair as well.
+ */
+@Component
+public class ResponseBodyCache {
+    private final ObjectMapper objectMapper;
+    private final Cache<Key, EncodedBody> bodies;
+
+    public ResponseBodyCache(ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${togglr.response-cache.maximum-weight:67108864}") long maximumWeight) {
+        this.objectMapper = objectMapper;
+        this.bodies = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .<Key, EncodedBody>weigher((key, body) -> body.weight())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, bodies, "response_bodies");
+    }
+
+    /**
+     * Body of the whole catalog at the given catalog version.
+     */
+    public EncodedBody get(String version, String variant, Supplier<Object> value) {
+        return bodies.get(new Key(null, version, variant), key -> EncodedBody.of(objectMapper, value.get()));
+    }
+
+    /**
+     * Body derived from one pair's snapshot at the given version.
+     */
+    public EncodedBody get(SnapshotKey pair, long version, String variant, Supplier<Object> value) {
+        return bodies.get(new Key(pair, Long.toString(version), variant), key -> EncodedBody.of(objectMapper, value.get()));
+    }
+
+    /**
+     * Encodes a body that must not be cached, e.g. because it does not match any version.
+     */
+    public EncodedBody encode(Object value) {
+        return EncodedBody.of(objectMapper, value);
+    }
+
+    /**
+     * Checks a conditional request against the ETag of the representation it would get; see {@link #respond}.
+     */
+    public static boolean checkNotModified(String etag, WebRequest request) {
+        if (!request.checkNotModified(codedEtag(etag, acceptsGzip(request)))) {
+            return false;
+        }
+
+        // A 304 is cached by intermediaries just like the 200 it stands for
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null) {
+            servletRequest.getResponse().setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+
+        return true;
+    }
+
+    /**
+     * Writes the body gzip-compressed when the client accepts it. The gzip representation has different
+     * bytes, so its ETag gets a {@code -gz} suffix; a strong ETag must not be shared between the two.
+     */
+    public static ResponseEntity<byte[]> respond(EncodedBody body, String etag, WebRequest request) {
+        boolean gzip = acceptsGzip(request);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (etag != null) {
+            builder.eTag(codedEtag(etag, gzip));
+        }
+
+        if (gzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        }
+
+        return builder.body(body.json());
+    }
+
+    /**
+     * Whether Accept-Encoding allows gzip: listed, or covered by {@code *}, with a q-value above zero.
+     */
+    static boolean acceptsGzip(WebRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+
+        for (String element : acceptEncoding.split(",")) {
+            String[] parameters = element.split(";");
+            String coding = parameters[0].trim();
+
+            if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) {
+                gzipQuality = quality(parameters);
+            } else if (coding.equals("*")) {
+                wildcardQuality = quality(parameters);
+            }
+        }
+
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+
+        return wildcardQuality != null && wildcardQuality > 0;
+    }
+
+    private static double quality(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+
+            if (parameter.length() > 2 && parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+
+        return 1;
+    }
+
+    private static String codedEtag(String etag, boolean gzip) {
+        if (!gzip || !etag.endsWith("\"")) {
+            return etag;
+        }
+
+        return etag.substring(0, etag.length() - 1) + "-gz\"";
+    }
+
+    private record Key(SnapshotKey pair, String version, String variant) {
+    }
+}
@@ -1,10 +1,18 @@
 package com.togglr.rest.controller;
 
+import com.togglr.audit.entity.AuditAccessRollup;
 import com.togglr.audit.entity.AuditLog;
 import com.togglr.audit.enums.AuditAction;
+import com.togglr.audit.enums.AuditExportFormat;
 import com.togglr.audit.enums.DataSource;
 import com.togglr.audit.enums.EntityType;
+import com.togglr.audit.repository.AuditAccessRollupRepository;
+import com.togglr.audit.repository.AuditCursor;
+import com.togglr.audit.repository.AuditLogFilter;
 import com.togglr.audit.repository.AuditLogRepository;
+import com.togglr.audit.service.AuditExporter;
+import com.togglr.rest.dto.AuditLogScrollResponse;
+import com.togglr.rest.exception.BadRequestException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -12,17 +20,23 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import jakarta.persistence.criteria.Predicate;
-import java.util.ArrayList;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/v1/audit")
@@ -30,7 +44,12 @@ import java.util.List;
 @RequiredArgsConstructor
 @Slf4j
 public class AuditController {
+    private static final int MAX_SCROLL_SIZE = 500;
+    private static final DateTimeFormatter EXPORT_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
     private final AuditLogRepository auditLogRepository;
+    private final AuditAccessRollupRepository auditAccessRollupRepository;
+    private final AuditExporter auditExporter;
 
     @GetMapping
     @Operation(summary = "Get audit logs", description = "Retrieve paginated audit logs for all operations")
@@ -51,30 +70,89 @@ public class AuditController {
             @Parameter(description = "Data source") @RequestParam(name = "data_source", required = false) String dataSource,
             @Parameter(description = "Pagination parameters") Pageable pageable) {
 
-        List<AuditAction> actions = (action != null && !action.isEmpty()) ?
-                action.stream().map(AuditAction::valueOf).toList() : null;
+        AuditLogFilter filter = filter(EntityType.FEATURE, featureId, action, userType, username, dataSource);
+        return auditLogRepository.findAll(filter.toSpecification(), pageable);
+    }
 
-        DataSource dataSourceEnum = (dataSource != null) ? DataSource.valueOf(dataSource.toUpperCase()) : null;
+    @GetMapping("/scroll")
+    @Operation(summary = "Scroll audit logs", description = "Cursor-paged audit logs, newest first; pass next_cursor of a page to get the next one")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('ROOT')")
+    public AuditLogScrollResponse scrollAuditLogs(
+            @Parameter(description = "Entity type", example = "FEATURE") @RequestParam(name = "entity_type", required = false) EntityType entityType,
+            @Parameter(description = "Entity ID", example = "1") @RequestParam(name = "entity_id", required = false) Long entityId,
+            @Parameter(description = "Action types") @RequestParam(required = false) List<String> action,
+            @Parameter(description = "User type") @RequestParam(name = "user_type", required = false) String userType,
+            @Parameter(description = "Username") @RequestParam(required = false) String username,
+            @Parameter(description = "Data source") @RequestParam(name = "data_source", required = false) String dataSource,
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size", example = "50") @RequestParam(defaultValue = "50") int size,
+            @Parameter(description = "Include an estimated total") @RequestParam(defaultValue = "false") boolean count) {
+        return scroll(filter(entityType, entityId, action, userType, username, dataSource), cursor, size, count);
+    }
 
-        Specification<AuditLog> spec = Specification.where(null);
-        
-        spec = spec.and((root, query, cb) -> cb.equal(root.get("entityType"), EntityType.FEATURE));
-        spec = spec.and((root, query, cb) -> cb.equal(root.get("entityId"), featureId));
-        
-        if (actions != null && !actions.isEmpty()) {
-            spec = spec.and((root, query, cb) -> root.get("action").in(actions));
-        }
-        if (userType != null) {
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("userType"), userType));
-        }
-        if (username != null) {
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("username"), username));
-        }
-        if (dataSourceEnum != null) {
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("dataSource"), dataSourceEnum));
-        }
-        
-        return auditLogRepository.findAll(spec, pageable);
+    @GetMapping("/feature/{featureId}/scroll")
+    @Operation(summary = "Scroll feature audit logs", description = "Cursor-paged audit logs of a feature with optional filters, newest first")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('ROOT')")
+    public AuditLogScrollResponse scrollFeatureAuditLogs(
+            @Parameter(description = "Feature ID", example = "1") @PathVariable Long featureId,
+            @Parameter(description = "Action types") @RequestParam(required = false) List<String> action,
+            @Parameter(description = "User type") @RequestParam(name = "user_type", required = false) String userType,
+            @Parameter(description = "Username") @RequestParam(required = false) String username,
+            @Parameter(description = "Data source") @RequestParam(name = "data_source", required = false) String dataSource,
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size", example = "50") @RequestParam(defaultValue = "50") int size,
+            @Parameter(description = "Include an estimated total") @RequestParam(defaultValue = "false") boolean count) {
+        return scroll(filter(EntityType.FEATURE, featureId, action, userType, username, dataSource), cursor, size, count);
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Export audit logs", description = "Streams every matching audit log, oldest first, as NDJSON or CSV, optionally gzipped")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('ROOT')")
+    public ResponseEntity<StreamingResponseBody> exportAuditLogs(
+            @Parameter(description = "Entity type", example = "FEATURE") @RequestParam(name = "entity_type", required = false) EntityType entityType,
+            @Parameter(description = "Entity ID", example = "1") @RequestParam(name = "entity_id", required = false) Long entityId,
+            @Parameter(description = "Action types") @RequestParam(required = false) List<String> action,
+            @Parameter(description = "User type") @RequestParam(name = "user_type", required = false) String userType,
+            @Parameter(description = "Username") @RequestParam(required = false) String username,
+            @Parameter(description = "Data source") @RequestParam(name = "data_source", required = false) String dataSource,
+            @Parameter(description = "Start of the time range (inclusive)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "End of the time range (exclusive)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Output format", example = "NDJSON") @RequestParam(defaultValue = "NDJSON") AuditExportFormat format,
+            @Parameter(description = "Compress the export with gzip") @RequestParam(defaultValue = "false") boolean gzip) {
+        AuditLogFilter base = filter(entityType, entityId, action, userType, username, dataSource);
+        AuditLogFilter filter = new AuditLogFilter(base.entityType(), base.entityId(), base.actions(), base.userType(),
+                base.username(), base.dataSource(), from, to);
+
+        String filename = "audit-" + LocalDateTime.now().format(EXPORT_TIMESTAMP) + "." + format.getExtension() + (gzip ? ".gz" : "");
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                try (GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024)) {
+                    auditExporter.export(filter, format, compressed);
+                }
+            } else {
+                auditExporter.export(filter, format, out);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    @GetMapping("/feature/{featureId}/access")
+    @Operation(summary = "Get feature access history", description = "Per-minute access counts of a feature, by user and data source, newest first")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('ROOT')")
+    public Page<AuditAccessRollup> getFeatureAccessHistory(
+            @Parameter(description = "Feature ID", example = "1") @PathVariable Long featureId,
+            @Parameter(description = "Start of the time range (inclusive)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "End of the time range (inclusive)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Pagination parameters") Pageable pageable) {
+        return auditAccessRollupRepository.findByEntityTypeAndEntityIdAndBucketStartBetweenOrderByBucketStartDesc(
+                EntityType.FEATURE, featureId,
+                from != null ? from : LocalDateTime.of(1970, 1, 1, 0, 0),
+                to != null ? to : LocalDateTime.now(),
+                pageable);
     }
 
     @GetMapping("/entity")
@@ -87,4 +165,37 @@ public class AuditController {
         return auditLogRepository.findByEntityTypeAndEntityIdOrderByCreatedAtDesc(
                 entityType, entityId, pageable);
     }
-}
\ No newline at end of file
+
+    private AuditLogScrollResponse scroll(AuditLogFilter filter, String cursor, int size, boolean count) {
+        if (size < 1 || size > MAX_SCROLL_SIZE) {
+            throw new BadRequestException("size must be between 1 and " + MAX_SCROLL_SIZE);
+        }
+
+        AuditCursor after = null;
+
+        if (cursor != null) {
+            after = AuditCursor.parse(cursor).orElseThrow(() -> new BadRequestException("Invalid cursor"));
+        }
+
+        // One extra row tells whether there is a next page without counting
+        List<AuditLog> logs = auditLogRepository.findPage(filter, after, size + 1);
+        boolean hasNext = logs.size() > size;
+        List<AuditLog> items = hasNext ? logs.subList(0, size) : logs;
+
+        return new AuditLogScrollResponse(
+                items,
+                hasNext ? AuditCursor.of(items.get(items.size() - 1)).toString() : null,
+                count ? auditLogRepository.estimateCount(filter) : null
+        );
+    }
+
+    private static AuditLogFilter filter(EntityType entityType, Long entityId, List<String> action,
+                                         String userType, String username, String dataSource) {
+        List<AuditAction> actions = (action != null && !action.isEmpty()) ?
+                action.stream().map(AuditAction::valueOf).toList() : null;
+
+        DataSource dataSourceEnum = (dataSource != null) ? DataSource.valueOf(dataSource.toUpperCase()) : null;
+
+        return new AuditLogFilter(entityType, entityId, actions, userType, username, dataSourceEnum, null, null);
+    }
+}
@@ -1,21 +1,37 @@
 package com.togglr.rest.controller;
 
 import com.togglr.feature.entity.Feature;
+import com.togglr.common.resilience.CircuitBreakerOpenException;
+import com.togglr.common.resilience.DegradedMode;
 import com.togglr.feature.service.FeatureService;
+import com.togglr.feature.snapshot.FeatureSnapshot;
+import com.togglr.feature.snapshot.FeatureSnapshotRegistry;
+import com.togglr.feature.snapshot.FeatureView;
+import com.togglr.feature.snapshot.SnapshotCursor;
+import com.togglr.feature.snapshot.SnapshotKey;
+import com.togglr.feature.stream.FeatureStreamService;
+import com.togglr.rest.cache.EncodedBody;
+import com.togglr.rest.cache.ResponseBodyCache;
 import com.togglr.rest.dto.CreateFeatureRequest;
+import com.togglr.rest.dto.FeatureBatchResponse;
+import com.togglr.rest.dto.FeatureDeltaResponse;
 import com.togglr.rest.dto.FeatureResponse;
 import com.togglr.rest.dto.UpdateFeatureRequest;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -24,11 +40,17 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 
 @RestController
 @RequestMapping("/api/v1/features")
@@ -38,27 +60,97 @@ import java.util.List;
 public class FeatureController {
 
     private final FeatureService featureService;
+    private final FeatureStreamService featureStreamService;
+    private final FeatureSnapshotRegistry snapshotRegistry;
+    private final ResponseBodyCache responseBodyCache;
+    private final DegradedMode degradedMode;
 
     @GetMapping
-    @Operation(summary = "Get all features", description = "Retrieve all feature toggles across all namespaces and environments")
-    public ResponseEntity<List<FeatureResponse>> getAllFeatures() {
-        List<FeatureResponse> features = featureService.getAllFeatures().stream()
-                .map(FeatureResponse::from)
-                .toList();
-        return ResponseEntity.ok(features);
+    @Operation(summary = "Get all features", description = "Retrieve all feature toggles across all namespaces and environments. Supports If-None-Match.")
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            array = @ArraySchema(schema = @Schema(implementation = FeatureResponse.class))))
+    public ResponseEntity<byte[]> getAllFeatures(WebRequest request) {
+        OptionalLong known = snapshotRegistry.catalogVersion();
+
+        if (known.isPresent() && ResponseBodyCache.checkNotModified(catalogEtag(known.getAsLong()), request)) {
+            return null;
+        }
+
+        try {
+            // The version is read before the data, so a concurrent write can only leave the body newer than its ETag
+            long version = known.isPresent() ? known.getAsLong() : featureService.getCatalogVersion();
+            EncodedBody body = responseBodyCache.get(Long.toString(version), "catalog", () -> featureService.getAllFeatures().stream()
+                    .map(FeatureResponse::from)
+                    .toList());
+            return ResponseBodyCache.respond(body, catalogEtag(version), request);
+        } catch (CircuitBreakerOpenException | DataAccessException e) {
+            // Last-known data has no version of its own, so it is neither cached nor given an ETag
+            log.warn("Serving the last-known feature catalog: {}", e.getMessage());
+            degradedMode.markStale();
+            EncodedBody body = responseBodyCache.encode(snapshotRegistry.lastKnownFeatures().stream()
+                    .map(FeatureResponse::from)
+                    .toList());
+            return ResponseBodyCache.respond(body, null, request);
+        }
     }
 
     @GetMapping("/enabled")
-    @Operation(summary = "Get enabled features", description = "Retrieve only enabled features for specific namespace and environment")
-    public ResponseEntity<List<FeatureResponse>> getEnabledFeatures(
+    @Operation(summary = "Get enabled features", description = "Retrieve only enabled features for specific namespace and environment. Supports If-None-Match.")
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            array = @ArraySchema(schema = @Schema(implementation = FeatureResponse.class))))
+    public ResponseEntity<byte[]> getEnabledFeatures(
             @Parameter(description = "Namespace name", example = "ecommerce") @RequestParam String namespace,
-            @Parameter(description = "Environment name", example = "dev") @RequestParam String environment) {
-        log.info("Getting enabled features for namespace: {} and environment: {}", namespace, environment);
-        List<FeatureResponse> features = featureService.getEnabledFeatures(namespace, environment).stream()
+            @Parameter(description = "Environment name", example = "dev") @RequestParam String environment,
+            WebRequest request) {
+        Optional<FeatureSnapshot> current = snapshotRegistry.peek(namespace, environment);
+
+        if (current.isPresent() && ResponseBodyCache.checkNotModified(etagOf(snapshotRegistry.cursorOf(current.get())), request)) {
+            return null;
+        }
+
+        log.debug("Getting enabled features for namespace: {} and environment: {}", namespace, environment);
+        FeatureSnapshot snapshot = featureService.getSnapshot(namespace, environment);
+        SnapshotCursor cursor = snapshotRegistry.cursorOf(snapshot);
+
+        EncodedBody body = responseBodyCache.get(keyOf(snapshot), cursor.version(), "enabled", () -> snapshot.getEnabledFeatures().stream()
                 .map(FeatureResponse::from)
-                .toList();
-        log.info("Found {} enabled features", features.size());
-        return ResponseEntity.ok(features);
+                .toList());
+        return ResponseBodyCache.respond(body, etagOf(cursor), request);
+    }
+
+    @GetMapping("/changes")
+    @Operation(
+        summary = "Get feature changes",
+        description = "Return only the features added, changed or removed in a namespace and environment since the given sequence. " +
+                "Without a sequence, or when it is unknown or too old, every feature is returned with full=true. " +
+                "Pass the returned sequence on the next call."
+    )
+    public ResponseEntity<FeatureDeltaResponse> getFeatureChanges(
+            @Parameter(description = "Namespace name", example = "ecommerce") @RequestParam String namespace,
+            @Parameter(description = "Environment name", example = "dev") @RequestParam String environment,
+            @Parameter(description = "Sequence returned by the previous call") @RequestParam(required = false) String since) {
+        FeatureSnapshot snapshot = featureService.getSnapshot(namespace, environment);
+        String sequence = snapshotRegistry.cursorOf(snapshot).toString();
+
+        FeatureDeltaResponse delta = snapshotRegistry.resolve(since)
+                .flatMap(sinceVersion -> featureService.getChangesSince(snapshot, sinceVersion))
+                .map(changes -> FeatureDeltaResponse.of(sequence, changes))
+                .orElseGet(() -> FeatureDeltaResponse.full(sequence, snapshot));
+
+        return ResponseEntity.ok(delta);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+        summary = "Stream feature changes",
+        description = "Server-sent events for one namespace and environment. The first event ('snapshot') carries every feature, " +
+                "followed by one 'change' event per create, update or delete. Reconnect with the Last-Event-ID header to resume."
+    )
+    public SseEmitter streamFeatures(
+            @Parameter(description = "Namespace name", example = "ecommerce") @RequestParam String namespace,
+            @Parameter(description = "Environment name", example = "dev") @RequestParam String environment,
+            @Parameter(description = "Id of the last event received") @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return featureStreamService.subscribe(namespace, environment, lastEventId);
     }
 
     @GetMapping("/feature")
@@ -70,12 +162,37 @@ public class FeatureController {
         @ApiResponse(responseCode = "200", description = "Feature found"),
         @ApiResponse(responseCode = "404", description = "Feature not found")
     })
-    public ResponseEntity<FeatureResponse> getFeature(
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            schema = @Schema(implementation = FeatureResponse.class)))
+    public ResponseEntity<byte[]> getFeature(
             @Parameter(description = "Feature name", example = "new-checkout") @RequestParam String name,
             @Parameter(description = "Namespace name", example = "ecommerce") @RequestParam String namespace,
+            @Parameter(description = "Environment name", example = "dev") @RequestParam String environment,
+            WebRequest request) {
+        FeatureSnapshot snapshot = featureService.getSnapshot(namespace, environment);
+        FeatureView feature = featureService.getFeature(name, snapshot);
+
+        EncodedBody body = responseBodyCache.get(keyOf(snapshot), snapshot.getVersion(), "feature:" + name,
+                () -> FeatureResponse.from(feature));
+        return ResponseBodyCache.respond(body, null, request);
+    }
+
+    @GetMapping("/batch")
+    @Operation(
+        summary = "Get features in bulk",
+        description = "Resolve many features of one namespace and environment in a single request. Names that do not exist are listed under 'missing' instead of failing the request."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Features resolved"),
+        @ApiResponse(responseCode = "400", description = "Too many feature names requested"),
+        @ApiResponse(responseCode = "404", description = "Namespace or environment not found")
+    })
+    public ResponseEntity<FeatureBatchResponse> getFeatures(
+            @Parameter(description = "Feature names", example = "new-checkout,ab-test") @RequestParam List<String> names,
+            @Parameter(description = "Namespace name", example = "ecommerce") @RequestParam String namespace,
             @Parameter(description = "Environment name", example = "dev") @RequestParam String environment) {
-        Feature feature = featureService.getFeature(name, namespace, environment);
-        return ResponseEntity.ok(FeatureResponse.from(feature));
+        Map<String, FeatureView> features = featureService.getFeatures(names, namespace, environment);
+        return ResponseEntity.ok(FeatureBatchResponse.from(namespace, environment, names, features));
     }
 
     @PostMapping
@@ -135,4 +252,16 @@ public class FeatureController {
         featureService.deleteFeature(id);
         return ResponseEntity.noContent().build();
     }
+
+    private String etagOf(SnapshotCursor cursor) {
+        return "\"" + cursor + "\"";
+    }
+
+    private static String catalogEtag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    private static SnapshotKey keyOf(FeatureSnapshot snapshot) {
+        return new SnapshotKey(snapshot.getNamespace(), snapshot.getEnvironment());
+    }
 }
@@ -0,0 +1,19 @@
+package com.togglr.rest.dto;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import com.togglr.audit.entity.AuditLog;
+
+import java.util.List;
+
+/**
+ * One page of a cursor-paged audit query, in snake_case like the query parameters of the scroll endpoints.
+ * {@code next_cursor} is null on the last page and {@code estimated_total} is only present when a count was asked for.
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record AuditLogScrollResponse(
+        List<AuditLog> items,
+        String nextCursor,
+        Long estimatedTotal
+) {
+}
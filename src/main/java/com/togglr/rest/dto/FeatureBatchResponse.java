@@ -0,0 +1,23 @@
+package com.togglr.rest.dto;
+
+import com.togglr.feature.snapshot.FeatureView;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public record FeatureBatchResponse(
+        String namespace,
+        String environment,
+        List<FeatureResponse> features,
+        List<String> missing
+) {
+    public static FeatureBatchResponse from(String namespace, String environment, Collection<String> names, Map<String, FeatureView> found) {
+        return new FeatureBatchResponse(
+                namespace,
+                environment,
+                found.values().stream().map(FeatureResponse::from).toList(),
+                names.stream().filter(name -> !found.containsKey(name)).distinct().toList()
+        );
+    }
+}
@@ -0,0 +1,17 @@
+package com.togglr.rest.dto;
+
+import com.togglr.feature.snapshot.FeatureChange;
+
+public record FeatureChangeResponse(
+        String type,
+        String name,
+        FeatureResponse feature
+) {
+    public static FeatureChangeResponse from(FeatureChange change) {
+        return new FeatureChangeResponse(
+                change.type().name(),
+                change.name(),
+                change.feature() != null ? FeatureResponse.from(change.feature()) : null
+        );
+    }
+}
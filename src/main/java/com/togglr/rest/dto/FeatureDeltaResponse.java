@@ -0,0 +1,43 @@
+package com.togglr.rest.dto;
+
+import com.togglr.feature.snapshot.FeatureChange;
+import com.togglr.feature.snapshot.FeatureSnapshot;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public record FeatureDeltaResponse(
+        String sequence,
+        boolean full,
+        List<FeatureResponse> upserted,
+        List<String> removed
+) {
+    public static FeatureDeltaResponse full(String sequence, FeatureSnapshot snapshot) {
+        return new FeatureDeltaResponse(
+                sequence,
+                true,
+                snapshot.getFeatures().stream().map(FeatureResponse::from).toList(),
+                List.of()
+        );
+    }
+
+    public static FeatureDeltaResponse of(String sequence, List<FeatureChange> changes) {
+        // Only the latest change per feature matters to the client
+        Map<String, FeatureChange> latest = new LinkedHashMap<>();
+        changes.forEach(change -> latest.put(change.name(), change));
+
+        return new FeatureDeltaResponse(
+                sequence,
+                false,
+                latest.values().stream()
+                        .filter(change -> change.type() == FeatureChange.Type.UPSERT)
+                        .map(change -> FeatureResponse.from(change.feature()))
+                        .toList(),
+                latest.values().stream()
+                        .filter(change -> change.type() == FeatureChange.Type.DELETE)
+                        .map(FeatureChange::name)
+                        .toList()
+        );
+    }
+}
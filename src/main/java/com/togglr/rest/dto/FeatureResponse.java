@@ -2,6 +2,7 @@ package com.togglr.rest.dto;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.togglr.feature.entity.Feature;
+import com.togglr.feature.snapshot.FeatureView;
 
 import java.time.LocalDateTime;
 
@@ -27,4 +28,17 @@ public record FeatureResponse(
                 feature.getUpdatedAt()
         );
     }
+
+    public static FeatureResponse from(FeatureView feature) {
+        return new FeatureResponse(
+                feature.id(),
+                feature.name(),
+                feature.namespace(),
+                feature.environment(),
+                feature.enabled(),
+                feature.metadata(),
+                feature.createdAt(),
+                feature.updatedAt()
+        );
+    }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.togglr.rest.exception;
 
+import com.togglr.common.resilience.CircuitBreakerOpenException;
 import com.togglr.rest.dto.ErrorResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -34,6 +35,17 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
+    @ExceptionHandler(CircuitBreakerOpenException.class)
+    public ResponseEntity<ErrorResponse> handleCircuitBreakerOpenException(CircuitBreakerOpenException ex) {
+        log.warn("Backend unavailable: {}", ex.getMessage());
+        ErrorResponse error = ErrorResponse.of(
+                ex.getClass().getSimpleName(),
+                ex.getMessage(),
+                503
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<ErrorResponse> handleDataIntegrityViolationException(DataIntegrityViolationException ex) {
         log.warn("Data integrity violation: {}", ex.getMessage());
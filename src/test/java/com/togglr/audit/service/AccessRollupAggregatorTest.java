@@ -0,0 +1,61 @@
+package com.togglr.audit.service;
+
+import com.togglr.audit.enums.DataSource;
+import com.togglr.audit.enums.EntityType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AccessRollupAggregatorTest {
+    private static final int THREADS = 4;
+    private static final int ACCESSES = 50_000;
+
+    @Test
+    void accessesRecordedDuringFlushesAreNotLost() throws Exception {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        AtomicLong written = new AtomicLong();
+        when(jdbcTemplate.batchUpdate(eq(AccessRollupAggregator.UPSERT_SQL), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            rows.forEach(row -> written.addAndGet((Long) row[7]));
+            return new int[rows.size()];
+        });
+
+        AccessRollupAggregator aggregator = new AccessRollupAggregator(jdbcTemplate, new SimpleMeterRegistry(), 5);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < ACCESSES; i++) {
+                    aggregator.record(EntityType.FEATURE, 1L, "checkout", "alice", "USER", DataSource.CACHE);
+                }
+                done.countDown();
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        while (done.getCount() > 0) {
+            aggregator.flushAll();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        aggregator.flushAll();
+
+        assertThat(written).hasValue((long) THREADS * ACCESSES);
+    }
+}
@@ -0,0 +1,138 @@
+package com.togglr.audit.service;
+
+import com.togglr.audit.enums.AuditPartitionInterval;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Testcontainers(disabledWithoutDocker = true)
+class AuditPartitionManagerTest {
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    // audit_logs as Hibernate created it before partitioning: identity id, single-column key and indexes
+    private static final String PRE_PARTITIONING_DDL = """
+            CREATE TABLE audit_logs (
+                id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+                created_at TIMESTAMP(6) NOT NULL,
+                updated_at TIMESTAMP(6),
+                action VARCHAR(255) NOT NULL CHECK (action IN ('CREATE', 'UPDATE', 'DELETE', 'ACCESS')),
+                data_source VARCHAR(255) CHECK (data_source IN ('DATABASE', 'CACHE')),
+                entity_id BIGINT NOT NULL,
+                entity_name VARCHAR(255),
+                entity_type VARCHAR(255) NOT NULL CHECK (entity_type IN ('FEATURE', 'NAMESPACE', 'ENVIRONMENT', 'USER')),
+                ip_address VARCHAR(255),
+                new_values TEXT,
+                old_values TEXT,
+                trace_id VARCHAR(255),
+                user_type VARCHAR(255),
+                username VARCHAR(255) NOT NULL,
+                PRIMARY KEY (id)
+            );
+            CREATE INDEX idx_audit_entity_type_id ON audit_logs (entity_type, entity_id);
+            CREATE INDEX idx_audit_created_at ON audit_logs (created_at);
+            CREATE INDEX idx_audit_username ON audit_logs (username);
+            CREATE INDEX idx_audit_action ON audit_logs (action);
+            """;
+
+    @TempDir
+    Path archivePath;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword()));
+        jdbcTemplate.execute("DROP SCHEMA public CASCADE; CREATE SCHEMA public");
+    }
+
+    @Test
+    void upgradesPopulatedPlainTableIntoLegacyPartition() {
+        jdbcTemplate.execute(PRE_PARTITIONING_DDL);
+
+        for (int i = 0; i < 100; i++) {
+            jdbcTemplate.update("INSERT INTO audit_logs (created_at, updated_at, action, entity_id, entity_type, username) " +
+                    "VALUES (now() - make_interval(days => ?), now(), 'UPDATE', ?, 'FEATURE', 'admin')", i * 7, i % 10);
+        }
+
+        manager().initialize();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT relkind::text FROM pg_class WHERE oid = to_regclass('audit_logs')", String.class))
+                .isEqualTo("p");
+        assertThat(jdbcTemplate.queryForObject("SELECT relispartition FROM pg_class WHERE oid = to_regclass('audit_logs_plegacy')", Boolean.class))
+                .isTrue();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM audit_logs", Long.class)).isEqualTo(100);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM pg_class WHERE relname = 'idx_audit_created_at'", Long.class))
+                .isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM pg_class WHERE relname = 'idx_audit_created'", Long.class))
+                .isOne();
+
+        // New rows take ids after the migrated ones
+        jdbcTemplate.update("INSERT INTO audit_logs (created_at, action, entity_id, entity_type, username) " +
+                "VALUES (now(), 'CREATE', 1, 'FEATURE', 'admin')");
+        assertThat(jdbcTemplate.queryForObject("SELECT max(id) FROM audit_logs WHERE action = 'CREATE'", Long.class))
+                .isEqualTo(101);
+
+        // A second start finds everything in place
+        manager().initialize();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM audit_logs", Long.class)).isEqualTo(101);
+    }
+
+    @Test
+    void createsPartitionedTableOnEmptyDatabase() {
+        manager().initialize();
+
+        jdbcTemplate.update("INSERT INTO audit_logs (created_at, action, entity_id, entity_type, username) " +
+                "VALUES (now(), 'CREATE', 1, 'FEATURE', 'admin')");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM audit_logs_default", Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM audit_logs", Long.class)).isOne();
+    }
+
+    @Test
+    void movesRowsOutOfDefaultPartitionWhenCreatingLaterPartitions() {
+        new AuditPartitionManager(jdbcTemplate, true, AuditPartitionInterval.MONTHLY, 0, 0, archivePath).initialize();
+
+        // Written before the partitions for the next two months exist, so they land in the default partition
+        for (int month = 1; month <= 2; month++) {
+            jdbcTemplate.update("INSERT INTO audit_logs (created_at, action, entity_id, entity_type, username) " +
+                    "VALUES (date_trunc('month', now()) + make_interval(months => ?, days => 3), 'CREATE', 1, 'FEATURE', 'admin')", month);
+        }
+
+        manager().initialize();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM audit_logs_default", Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM audit_logs", Long.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM pg_inherits WHERE inhparent = to_regclass('audit_logs')", Long.class))
+                .isEqualTo(4);
+    }
+
+    @Test
+    void archivesAndDropsOnlyPartitionsItDetached() {
+        manager().initialize();
+        jdbcTemplate.execute("CREATE TABLE audit_logs_p2019 PARTITION OF audit_logs FOR VALUES FROM ('2019-01-01') TO ('2020-01-01')");
+        jdbcTemplate.update("INSERT INTO audit_logs (created_at, action, entity_id, entity_type, username) " +
+                "VALUES ('2019-06-01', 'CREATE', 1, 'FEATURE', 'admin')");
+        jdbcTemplate.execute("CREATE TABLE audit_logs_pnotes (note TEXT)");
+
+        new AuditPartitionManager(jdbcTemplate, true, AuditPartitionInterval.MONTHLY, 2, 30, archivePath).maintain();
+
+        assertThat(archivePath.resolve("audit_logs_p2019.csv.gz")).exists();
+        assertThat(jdbcTemplate.queryForObject("SELECT to_regclass('audit_logs_p2019') IS NULL", Boolean.class)).isTrue();
+        assertThat(jdbcTemplate.queryForObject("SELECT to_regclass('audit_logs_pnotes') IS NOT NULL", Boolean.class)).isTrue();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM audit_logs", Long.class)).isZero();
+    }
+
+    private AuditPartitionManager manager() {
+        return new AuditPartitionManager(jdbcTemplate, true, AuditPartitionInterval.MONTHLY, 2, 0, archivePath);
+    }
+}
@@ -0,0 +1,157 @@
+package com.togglr.common.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two nodes, each with its own near caches and invalidation bus, sharing one Redis for L2 and pub/sub.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class LayeredCacheManagerTest {
+    @Container
+    static final GenericContainer<?> REDIS = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+
+    private static final Duration NEAR_TTL = Duration.ofMinutes(5);
+
+    private final List<RedisMessageListenerContainer> listenerContainers = new ArrayList<>();
+    private LettuceConnectionFactory connectionFactory;
+    private RedisCacheManager remote;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.getConnection().serverCommands().flushAll();
+        remote = RedisCacheManager.create(connectionFactory);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (RedisMessageListenerContainer container : listenerContainers) {
+            container.destroy();
+        }
+
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void fillsNearCacheFromRemote() {
+        Cache nodeA = node().getCache("features");
+        Cache nodeB = node().getCache("features");
+
+        nodeA.put("checkout", "v1");
+        assertThat(nodeB.get("checkout", String.class)).isEqualTo("v1");
+
+        // Changed in Redis behind both nodes' backs: node B keeps serving its near copy
+        remote.getCache("features").put("checkout", "v2");
+        assertThat(nodeB.get("checkout", String.class)).isEqualTo("v1");
+    }
+
+    @Test
+    void evictsNearCachesOfOtherNodes() {
+        Cache nodeA = node().getCache("features");
+        Cache nodeB = node().getCache("features");
+
+        nodeA.put("checkout", "v1");
+        nodeA.put("search", "v1");
+        assertThat(nodeB.get("checkout", String.class)).isEqualTo("v1");
+        assertThat(nodeB.get("search", String.class)).isEqualTo("v1");
+
+        nodeA.put("checkout", "v2");
+        awaitValue(() -> nodeB.get("checkout", String.class), "v2");
+
+        remote.getCache("features").put("search", "v2");
+        nodeA.clear();
+        awaitValue(() -> nodeB.get("search", String.class), null);
+    }
+
+    @Test
+    void ignoresItsOwnInvalidations() throws InterruptedException {
+        CacheInvalidationBus busA = bus();
+        Cache nodeA = layered(busA).getCache("features");
+        CacheInvalidationBus busB = bus();
+        CountDownLatch marker = new CountDownLatch(1);
+        busA.subscribe("marker", key -> marker.countDown());
+
+        nodeA.put("checkout", "v1");
+        // Pub/sub keeps publish order per subscriber, so once node A sees node B's marker
+        // it has also received its own invalidation for the put
+        busB.publish("marker", "sync");
+        assertThat(marker.await(5, TimeUnit.SECONDS)).isTrue();
+
+        remote.getCache("features").put("checkout", "v2");
+        assertThat(nodeA.get("checkout", String.class)).isEqualTo("v1");
+    }
+
+    private LayeredCacheManager node() {
+        return layered(bus());
+    }
+
+    private LayeredCacheManager layered(CacheInvalidationBus bus) {
+        return new LayeredCacheManager(remote, bus, NEAR_TTL, 100, new SimpleMeterRegistry());
+    }
+
+    private CacheInvalidationBus bus() {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.afterPropertiesSet();
+        listenerContainers.add(container);
+
+        RedisCacheInvalidationBus bus = new RedisCacheInvalidationBus(new StringRedisTemplate(connectionFactory), container);
+        container.start();
+        awaitSubscribed(container);
+        return bus;
+    }
+
+    // The container subscribes asynchronously; messages published before that are lost
+    private static void awaitSubscribed(RedisMessageListenerContainer container) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (!container.isListening() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+
+        assertThat(container.isListening()).isTrue();
+    }
+
+    private static void awaitValue(Supplier<String> actual, String expected) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (!Objects.equals(actual.get(), expected) && System.nanoTime() < deadline) {
+            sleep();
+        }
+
+        assertThat(actual.get()).isEqualTo(expected);
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(20);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
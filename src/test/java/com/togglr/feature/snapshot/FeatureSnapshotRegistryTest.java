@@ -0,0 +1,61 @@
+package com.togglr.feature.snapshot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FeatureSnapshotRegistryTest {
+    private final AtomicInteger loads = new AtomicInteger();
+    private FeatureSnapshotRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new FeatureSnapshotRegistry(new SimpleMeterRegistry(), event -> { }, 10000, 10000);
+    }
+
+    @Test
+    void writeInOneNamespaceLeavesOtherNamespacesWarm() {
+        FeatureSnapshot shop = load("shop", "dev");
+        FeatureSnapshot billing = load("billing", "dev");
+
+        registry.written(new SnapshotKey("shop", "dev"),
+                sinceVersion -> SnapshotUpdate.incremental(sinceVersion + 1, List.of(FeatureChange.upsert(sinceVersion + 1,
+                        feature("shop", "dev", "checkout", false)))));
+
+        assertThat(load("billing", "dev")).isSameAs(billing);
+        assertThat(load("shop", "dev")).isNotSameAs(shop);
+        assertThat(load("shop", "dev").find("checkout").orElseThrow().enabled()).isFalse();
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void renameOrEvictionInOneNamespaceLeavesOtherNamespacesWarm() {
+        load("shop", "dev");
+        FeatureSnapshot billing = load("billing", "dev");
+
+        registry.namespaceRenamed("shop", "store");
+        registry.evict(new SnapshotKey("shop", "prod"));
+
+        assertThat(registry.peek("shop", "dev")).isEmpty();
+        assertThat(load("billing", "dev")).isSameAs(billing);
+        assertThat(loads).hasValue(2);
+    }
+
+    private FeatureSnapshot load(String namespace, String environment) {
+        return registry.get(namespace, environment, () -> {
+            loads.incrementAndGet();
+            return FeatureSnapshot.of(namespace, environment, 1, List.of(feature(namespace, environment, "checkout", true)));
+        });
+    }
+
+    private static FeatureView feature(String namespace, String environment, String name, boolean enabled) {
+        LocalDateTime now = LocalDateTime.of(2026, 1, 1, 0, 0);
+        return new FeatureView(1L, name, namespace, environment, enabled, null, now, now);
+    }
+}
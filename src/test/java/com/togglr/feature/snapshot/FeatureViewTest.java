@@ -0,0 +1,50 @@
+package com.togglr.feature.snapshot;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.togglr.feature.cache.FeatureViewCodec;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FeatureViewTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void metadataCannotBeChangedThroughTheViewOrItsSource() throws Exception {
+        ObjectNode source = objectMapper.createObjectNode().put("percentage", 50);
+        FeatureView view = view(source);
+
+        source.put("percentage", 100);
+
+        assertThatThrownBy(() -> ((ObjectNode) view.metadata()).put("percentage", 0))
+                .isInstanceOf(ClassCastException.class);
+        assertThat(objectMapper.writeValueAsString(view.metadata())).isEqualTo("{\"percentage\":50}");
+    }
+
+    @Test
+    void survivesTheBinaryCodec() throws Exception {
+        FeatureView view = view(objectMapper.readTree("{\"variants\":[\"A\",\"B\"],\"owner\":{\"team\":\"checkout\"}}"));
+        FeatureViewCodec codec = new FeatureViewCodec(objectMapper);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        codec.write(new DataOutputStream(bytes), view);
+        FeatureView read = codec.read(ByteBuffer.wrap(bytes.toByteArray()));
+
+        assertThat(read).isEqualTo(view);
+        assertThat(objectMapper.writeValueAsString(read.metadata()))
+                .isEqualTo("{\"variants\":[\"A\",\"B\"],\"owner\":{\"team\":\"checkout\"}}");
+    }
+
+    private static FeatureView view(JsonNode metadata) {
+        LocalDateTime now = LocalDateTime.of(2026, 1, 1, 0, 0);
+        return new FeatureView(1L, "checkout", "shop", "dev", true, metadata, now, now);
+    }
+}
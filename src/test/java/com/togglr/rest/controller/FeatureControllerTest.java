@@ -0,0 +1,80 @@
+package com.togglr.rest.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.togglr.common.resilience.DegradedMode;
+import com.togglr.feature.service.FeatureService;
+import com.togglr.feature.snapshot.FeatureSnapshot;
+import com.togglr.feature.snapshot.FeatureSnapshotRegistry;
+import com.togglr.feature.snapshot.FeatureView;
+import com.togglr.feature.stream.FeatureStreamService;
+import com.togglr.rest.cache.ResponseBodyCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FeatureControllerTest {
+    private final FeatureService featureService = mock(FeatureService.class);
+    private FeatureController controller;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        FeatureSnapshotRegistry snapshotRegistry = new FeatureSnapshotRegistry(meterRegistry, event -> { }, 10000, 10000);
+        ResponseBodyCache responseBodyCache = new ResponseBodyCache(new ObjectMapper().registerModule(new JavaTimeModule()),
+                meterRegistry, 1 << 20);
+        controller = new FeatureController(featureService, mock(FeatureStreamService.class), snapshotRegistry,
+                responseBodyCache, new DegradedMode(meterRegistry, 5, 30000));
+    }
+
+    @Test
+    void pairsWithoutLoggedChangesDoNotShareBodies() {
+        // Both pairs predate the change log, so both are at version 0
+        stubSnapshot("shop", "dev", feature(1L, "checkout", "shop", "dev"));
+        stubSnapshot("shop", "prod", feature(2L, "checkout", "shop", "prod"));
+
+        String dev = body(controller.getEnabledFeatures("shop", "dev", request()).getBody());
+        String prod = body(controller.getEnabledFeatures("shop", "prod", request()).getBody());
+
+        assertThat(dev).contains("\"environment\":\"dev\"").doesNotContain("\"environment\":\"prod\"");
+        assertThat(prod).contains("\"environment\":\"prod\"").doesNotContain("\"environment\":\"dev\"");
+
+        String devFeature = body(controller.getFeature("checkout", "shop", "dev", request()).getBody());
+        String prodFeature = body(controller.getFeature("checkout", "shop", "prod", request()).getBody());
+
+        assertThat(devFeature).contains("\"id\":1");
+        assertThat(prodFeature).contains("\"id\":2");
+    }
+
+    private void stubSnapshot(String namespace, String environment, FeatureView... features) {
+        when(featureService.getSnapshot(namespace, environment))
+                .thenReturn(FeatureSnapshot.of(namespace, environment, 0, List.of(features)));
+        when(featureService.getFeature(anyString(), any(FeatureSnapshot.class)))
+                .thenAnswer(invocation -> invocation.<FeatureSnapshot>getArgument(1).find(invocation.getArgument(0)).orElseThrow());
+    }
+
+    private static FeatureView feature(Long id, String name, String namespace, String environment) {
+        LocalDateTime now = LocalDateTime.now();
+        return new FeatureView(id, name, namespace, environment, true, null, now, now);
+    }
+
+    private static ServletWebRequest request() {
+        return new ServletWebRequest(new MockHttpServletRequest());
+    }
+
+    private static String body(byte[] body) {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+}